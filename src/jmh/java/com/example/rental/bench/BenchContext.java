@@ -0,0 +1,60 @@
+package com.example.rental.bench;
+
+import com.example.rental.Application;
+import com.example.rental.model.CarType;
+import com.example.rental.service.DailyInventoryService;
+import com.example.rental.service.OccupancyIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Boots the application (random port, test configuration) on a private in-memory H2 database and
+ * seeds it with {@code reservations} CONFIRMED bookings spread over the next year.
+ */
+final class BenchContext {
+
+    static final int HORIZON_DAYS = 365;
+
+    private BenchContext() {}
+
+    static ConfigurableApplicationContext start(String name, int reservations, long capacityPerType, String... properties) {
+        List<String> props = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + name + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;LOCK_TIMEOUT=30000",
+                "server.port=0",
+                "logging.level.root=WARN"));
+        props.addAll(List.of(properties));
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(Application.class)
+                .properties(props.toArray(String[]::new))
+                .run();
+        seed(ctx.getBean(JdbcTemplate.class), reservations, capacityPerType);
+        // the index loaded on startup, before the seed rows existed, and the inventory never saw them
+        ctx.getBean(OccupancyIndex.class).load();
+        ctx.getBean(DailyInventoryService.class).rebuild();
+        return ctx;
+    }
+
+    private static void seed(JdbcTemplate jdbc, int reservations, long capacityPerType) {
+        for (CarType t : CarType.values()) {
+            jdbc.update("insert into capacities (car_type, quantity) values (?, ?)", t.name(), capacityPerType);
+        }
+        Random rnd = new Random(42);
+        Instant base = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        List<Object[]> rows = new ArrayList<>(reservations);
+        for (int i = 0; i < reservations; i++) {
+            Instant start = base.plus(rnd.nextInt(HORIZON_DAYS * 24), ChronoUnit.HOURS);
+            int days = 1 + rnd.nextInt(7);
+            rows.add(new Object[]{(long) i, CarType.values()[i % 3].name(), Timestamp.from(start),
+                    Timestamp.from(start.plus(days, ChronoUnit.DAYS)), days});
+        }
+        jdbc.batchUpdate("insert into reservations (id, user_id, car_type, start_at, end_at, days, status, version) "
+                + "values (nextval('reservations_seq'), ?, ?, ?, ?, ?, 'CONFIRMED', 0)", rows);
+    }
+}
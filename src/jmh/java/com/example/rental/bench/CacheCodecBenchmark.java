@@ -0,0 +1,78 @@
+package com.example.rental.bench;
+
+import com.example.rental.config.cache.CompactCacheValueSerializer;
+import com.example.rental.model.CarType;
+import com.example.rental.service.AvailabilityKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Availability cache entry encoding: the previous setup (key via {@code toString()}, value via JDK
+ * serialisation) against {@link AvailabilityKey#cacheKey()} and {@link CompactCacheValueSerializer}.
+ * Bytes per entry are printed once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheCodecBenchmark {
+
+    private final RedisSerializer<Object> jdk = new JdkSerializationRedisSerializer();
+    private final RedisSerializer<Object> compact = new CompactCacheValueSerializer();
+
+    private AvailabilityKey key;
+    private Long value;
+    private byte[] jdkBytes;
+    private byte[] compactBytes;
+
+    @Setup
+    public void setup() {
+        key = new AvailabilityKey(CarType.SEDAN, Instant.parse("2030-06-01T10:00:00Z"), 3);
+        value = 17L;
+        jdkBytes = jdk.serialize(value);
+        compactBytes = compact.serialize(value);
+        System.out.printf("%nbytes per entry  jdk: key=%d value=%d  compact: key=%d value=%d%n",
+                ("availability::" + key).getBytes(StandardCharsets.UTF_8).length, jdkBytes.length,
+                ("availability:c1:" + key.cacheKey()).getBytes(StandardCharsets.UTF_8).length, compactBytes.length);
+    }
+
+    @Benchmark
+    public String keyToString() {
+        return key.toString();
+    }
+
+    @Benchmark
+    public String keyCompact() {
+        return key.cacheKey();
+    }
+
+    @Benchmark
+    public byte[] encodeJdk() {
+        return jdk.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] encodeCompact() {
+        return compact.serialize(value);
+    }
+
+    @Benchmark
+    public Object decodeJdk() {
+        return jdk.deserialize(jdkBytes);
+    }
+
+    @Benchmark
+    public Object decodeCompact() {
+        return compact.deserialize(compactBytes);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.rental.bench;
+
+import com.example.rental.model.CarType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CarTypeBenchmark {
+
+    @Param({"sedan", "VAN", " Suv "})
+    String value;
+
+    @Benchmark
+    public CarType from() {
+        return CarType.from(value);
+    }
+}
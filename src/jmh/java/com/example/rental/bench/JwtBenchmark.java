@@ -0,0 +1,42 @@
+package com.example.rental.bench;
+
+import com.example.rental.config.jwt.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    private static final String SECRET = "c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0";
+
+    private JwtService jwtService;
+    private Map<String, Object> claims;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(SECRET, 3_600_000);
+        claims = Map.of("role", "USER", JwtService.USER_ID_CLAIM, 42L);
+        token = jwtService.generate("bench@example.com", claims);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtService.generate("bench@example.com", claims);
+    }
+
+    @Benchmark
+    public String subject() {
+        return jwtService.subject(token);
+    }
+}
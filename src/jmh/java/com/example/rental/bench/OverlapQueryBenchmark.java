@@ -0,0 +1,108 @@
+package com.example.rental.bench;
+
+import com.example.rental.Application;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationStatus;
+import com.example.rental.repository.ReservationRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two overlap COUNTs of {@code app.availability.overlap-query} on Postgres: start/end bounds over the
+ * btree ({@code btree}) and {@code period && window} over the GiST index of the {@code db/range}
+ * migration ({@code range}). Needs a Postgres database (default {@code carrental_bench} on localhost,
+ * override with {@code -Dbench.postgres.url/user/password} in {@code jmh.args}); Flyway migrates it with
+ * both locations. The database is reseeded only when its row count differs from {@code rows}: bookings
+ * spread from two years back to one year ahead, 1-7 days long, 10% cancelled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OverlapQueryBenchmark {
+
+    private static final int SPAN_HOURS = 3 * 365 * 24;
+
+    // deterministic spread: multiplicative hashing of the row number instead of random()
+    private static final String SEED = """
+            insert into reservations (user_id, car_type, start_at, end_at, days, status, version)
+            select g % 1000, (array['SEDAN', 'SUV', 'VAN'])[1 + g % 3], s, s + d * interval '1 day', d,
+                   case when g % 10 = 0 then 'CANCELLED' else 'CONFIRMED' end, 0
+            from (select g, ?::timestamp + ((g * 2654435761) % ?) * interval '1 hour' as s,
+                         (1 + (g * 40503) % 7)::int as d
+                  from generate_series(1::bigint, ?) g) w
+            """;
+
+    @Param({"1000000", "5000000"})
+    long rows;
+
+    @Param({"btree", "range"})
+    String query;
+
+    private ConfigurableApplicationContext ctx;
+    private ReservationRepository repository;
+    private Instant base;
+
+    @Setup(Level.Trial)
+    public void start() {
+        ctx = new SpringApplicationBuilder(Application.class)
+                .properties(
+                        "spring.datasource.url=" + System.getProperty("bench.postgres.url", "jdbc:postgresql://localhost:5432/carrental_bench"),
+                        "spring.datasource.username=" + System.getProperty("bench.postgres.user", "postgres"),
+                        "spring.datasource.password=" + System.getProperty("bench.postgres.password", "postgres"),
+                        "spring.datasource.driver-class-name=org.postgresql.Driver",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "spring.flyway.enabled=true",
+                        "spring.flyway.locations=classpath:db/migration,classpath:db/range",
+                        "app.partitioning.enabled=true",
+                        "app.availability.index.enabled=false",
+                        "app.availability.inventory.enabled=false",
+                        "app.availability.source=database",
+                        "server.port=0",
+                        "logging.level.root=WARN")
+                .run();
+        repository = ctx.getBean(ReservationRepository.class);
+        base = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(730, ChronoUnit.DAYS);
+        seed(ctx.getBean(JdbcTemplate.class));
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        Long present = jdbc.queryForObject("select count(*) from reservations", Long.class);
+        if (present != null && present == rows) return;
+        jdbc.execute("truncate reservations");
+        jdbc.update(SEED, base.toString().replace('T', ' ').replace("Z", ""), SPAN_HOURS, rows);
+        jdbc.execute("analyze reservations");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public long count() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        CarType type = CarType.values()[rnd.nextInt(3)];
+        Instant startAt = base.plus(rnd.nextInt(SPAN_HOURS), ChronoUnit.HOURS);
+        Instant endAt = startAt.plus(1 + rnd.nextInt(7), ChronoUnit.DAYS);
+        Instant earliestStart = startAt.minus(365, ChronoUnit.DAYS);
+        return query.equals("range")
+                ? repository.countConfirmedOverlappingByPeriod(type.name(), startAt, endAt, earliestStart, null)
+                : repository.countOverlappingByTypeExcluding(type, startAt, endAt, earliestStart, ReservationStatus.CONFIRMED, null);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.rental.bench;
+
+import com.example.rental.dto.reservation.ReservationResponse;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Serialising a user's reservation list the way {@code GET /api/reservations/my} does. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReservationResponseJsonBenchmark {
+
+    @Param({"1", "100"})
+    int size;
+
+    private ObjectMapper mapper;
+    private List<ReservationResponse> list;
+
+    @Setup
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        Instant start = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new ReservationResponse((long) i, 7L, CarType.values()[i % 3], start.plus(i, ChronoUnit.DAYS),
+                    start.plus(i + 3, ChronoUnit.DAYS), 3, ReservationStatus.CONFIRMED));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(list);
+    }
+}
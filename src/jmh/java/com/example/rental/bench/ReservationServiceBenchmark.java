@@ -0,0 +1,89 @@
+package com.example.rental.bench;
+
+import com.example.rental.dto.reservation.ReservationCreateRequest;
+import com.example.rental.exception.ConflictException;
+import com.example.rental.model.CarType;
+import com.example.rental.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReservationService#available} and {@link ReservationService#create} against a seeded H2
+ * database. {@code available} queries random hourly windows, so with the cache disabled in the test
+ * configuration it measures the configured {@code app.availability.source}: the in-memory index, the
+ * COUNT query or the daily inventory table.
+ * {@code create} books random windows from several threads; rejections for lack of capacity are part
+ * of the workload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReservationServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    int reservations;
+
+    @Param({"index", "database", "inventory"})
+    String source;
+
+    @Param({"50"})
+    long capacity;
+
+    private ConfigurableApplicationContext ctx;
+    private ReservationService service;
+    private Instant base;
+
+    @Setup(Level.Trial)
+    public void start() {
+        ctx = BenchContext.start("reservations-" + reservations + "-" + source, reservations, capacity,
+                "app.availability.source=" + source);
+        service = ctx.getBean(ReservationService.class);
+        base = Instant.now().truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public long available() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        return service.available(randomType(rnd), randomStart(rnd), 1 + rnd.nextInt(7));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object create() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        var req = new ReservationCreateRequest(randomType(rnd), randomStart(rnd), 1 + rnd.nextInt(7));
+        try {
+            return service.create(rnd.nextLong(1, 1000), req);
+        } catch (ConflictException e) {
+            return e;
+        }
+    }
+
+    private Instant randomStart(ThreadLocalRandom rnd) {
+        return base.plus(rnd.nextInt(BenchContext.HORIZON_DAYS * 24), ChronoUnit.HOURS);
+    }
+
+    private static CarType randomType(ThreadLocalRandom rnd) {
+        return CarType.values()[rnd.nextInt(3)];
+    }
+}
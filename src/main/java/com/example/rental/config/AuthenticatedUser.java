@@ -0,0 +1,29 @@
+package com.example.rental.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+/**
+ * Security principal carrying the numeric user id, so request handling never has to look the user
+ * up again. Built by {@link JpaUserDetailsService} on login and from the JWT on later requests, where
+ * there is no password to carry.
+ */
+public record AuthenticatedUser(Long id, String email, String passwordHash,
+                                Collection<? extends GrantedAuthority> authorities) implements UserDetails {
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() { return authorities; }
+
+    @Override
+    public String getPassword() { return passwordHash; }
+
+    @Override
+    public String getUsername() { return email; }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser[id=" + id + ", email=" + email + "]";
+    }
+}
@@ -4,13 +4,19 @@ import com.example.rental.model.User;
 import com.example.rental.repository.UserRepository;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
+/**
+ * Loads users for login and, as the {@link UserDetailsPasswordService}, stores the re-encoded hash
+ * when login finds one below the configured BCrypt strength.
+ */
 @Service
-public class JpaUserDetailsService implements UserDetailsService {
+public class JpaUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -18,11 +24,22 @@ public class JpaUserDetailsService implements UserDetailsService {
         this.userRepository = userRepository;
     }
 
+    // read-write on purpose, so it runs on the primary: a user may log in right after signing up,
+    // before the replica has the row
     @Override
+    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User u = userRepository.findByEmail(username).orElseThrow(() -> new UsernameNotFoundException("Not found"));
-        return new org.springframework.security.core.userdetails.User(
-                u.getEmail(), u.getPasswordHash(), List.of(new SimpleGrantedAuthority("ROLE_USER"))
+        return new AuthenticatedUser(
+                u.getId(), u.getEmail(), u.getPasswordHash(), List.of(new SimpleGrantedAuthority("ROLE_USER"))
         );
     }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPasswordHash) {
+        userRepository.updatePasswordHash(user.getUsername(), newPasswordHash);
+        AuthenticatedUser u = (AuthenticatedUser) user;
+        return new AuthenticatedUser(u.id(), u.email(), newPasswordHash, u.authorities());
+    }
 }
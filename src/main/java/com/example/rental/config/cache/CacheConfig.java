@@ -0,0 +1,66 @@
+package com.example.rental.config.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+
+import java.time.Duration;
+
+/**
+ * With {@code spring.cache.type=redis}, replaces Boot's Redis cache manager with a
+ * {@link TwoLevelCacheManager} (Caffeine near cache per node over Redis) and invalidates near
+ * caches across nodes over Redis pub/sub. {@code app.cache.codec} picks the Redis value format:
+ * {@code compact} ({@link CompactCacheValueSerializer}, default) or {@code jdk} serialisation. Otherwise Boot's cache manager is left alone and
+ * invalidations stay in-process.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    static class RedisTwoLevel {
+
+        @Bean
+        CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate redis, RedisConnectionFactory connectionFactory,
+                                                  ObjectMapper objectMapper) {
+            return new RedisCacheInvalidationBus(redis, connectionFactory, objectMapper);
+        }
+
+        @Bean
+        CacheManager cacheManager(RedisConnectionFactory connectionFactory, CacheInvalidationBus bus, MeterRegistry meterRegistry,
+                                  @Value("${app.cache.codec:compact}") String codec,
+                                  @Value("${app.cache.remote-ttl:PT10M}") Duration remoteTtl,
+                                  @Value("${app.cache.near.max-size:10000}") long nearMaxSize,
+                                  @Value("${app.cache.near.ttl:PT30S}") Duration nearTtl) {
+            RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig().entryTtl(remoteTtl);
+            defaults.configureKeyConverters(keys -> keys.addConverter(CacheKey.class, String.class, CacheKey::cacheKey));
+            defaults = switch (codec) {
+                case "jdk" -> defaults;
+                // own key prefix, so entries written by the other codec are never read back
+                case "compact" -> defaults
+                        .serializeValuesWith(SerializationPair.fromSerializer(new CompactCacheValueSerializer()))
+                        .computePrefixWith(name -> name + ":c1:");
+                default -> throw new IllegalArgumentException("app.cache.codec must be compact or jdk: " + codec);
+            };
+            RedisCacheManager redis = RedisCacheManager.builder(connectionFactory).cacheDefaults(defaults).build();
+            redis.afterPropertiesSet();
+            return new TwoLevelCacheManager(redis, bus, meterRegistry, nearMaxSize, nearTtl);
+        }
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(CacheInvalidationBus.class)
+    CacheInvalidationBus localCacheInvalidationBus() {
+        return new LocalCacheInvalidationBus();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.rental.config.cache;
+
+import com.example.rental.model.ReservationWindow;
+
+/**
+ * A message on the {@link CacheInvalidationBus}. Carries either one cache key (in its Redis string
+ * form), a changed reservation window for caches that invalidate by range, or neither to clear the
+ * cache. {@code origin} identifies the publisher so it can ignore its own messages.
+ */
+public record CacheInvalidation(String origin, String cacheName, String key, ReservationWindow window) {
+
+    public static CacheInvalidation evict(String origin, String cacheName, String key) {
+        return new CacheInvalidation(origin, cacheName, key, null);
+    }
+
+    public static CacheInvalidation clear(String origin, String cacheName) {
+        return new CacheInvalidation(origin, cacheName, null, null);
+    }
+
+    public static CacheInvalidation window(String origin, String cacheName, ReservationWindow window) {
+        return new CacheInvalidation(origin, cacheName, null, window);
+    }
+
+    public boolean isClear() {
+        return key == null && window == null;
+    }
+}
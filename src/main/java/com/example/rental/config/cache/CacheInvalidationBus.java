@@ -0,0 +1,14 @@
+package com.example.rental.config.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Fan-out of cache invalidations to every node, so in-process copies of shared cache entries are
+ * dropped when any node changes them. Delivery is best effort; near caches also expire on their own.
+ */
+public interface CacheInvalidationBus {
+
+    void publish(CacheInvalidation message);
+
+    void subscribe(Consumer<CacheInvalidation> listener);
+}
@@ -0,0 +1,14 @@
+package com.example.rental.config.cache;
+
+/**
+ * A cache key with its own compact string form, used as the Redis key (after the cache prefix), the
+ * near-cache key and the key in invalidation messages. Must be unique per key and cheap to build.
+ */
+public interface CacheKey {
+
+    String cacheKey();
+
+    static String of(Object key) {
+        return key instanceof CacheKey k ? k.cacheKey() : String.valueOf(key);
+    }
+}
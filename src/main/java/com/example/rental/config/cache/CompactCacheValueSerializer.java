@@ -0,0 +1,76 @@
+package com.example.rental.config.cache;
+
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tagged binary cache values: one type byte, then a zig-zag varint for {@code Long}/{@code Integer},
+ * UTF-8 for {@code String}, nothing for the cached-null marker. A {@code Long} availability count takes
+ * 2 bytes instead of 82 with JDK serialisation. Any other type falls back to JDK serialisation behind
+ * its own tag, so new caches work unchanged until they get a dedicated encoding.
+ */
+public class CompactCacheValueSerializer implements RedisSerializer<Object> {
+
+    private static final byte NULL = 0, LONG = 1, INT = 2, STRING = 3, JDK = 127;
+
+    private final JdkSerializationRedisSerializer fallback = new JdkSerializationRedisSerializer();
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value == null || value instanceof NullValue) return new byte[]{NULL};
+        if (value instanceof Long l) return varint(LONG, l);
+        if (value instanceof Integer i) return varint(INT, i);
+        if (value instanceof String s) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            byte[] out = new byte[utf8.length + 1];
+            out[0] = STRING;
+            System.arraycopy(utf8, 0, out, 1, utf8.length);
+            return out;
+        }
+        byte[] jdk = fallback.serialize(value);
+        byte[] out = new byte[jdk.length + 1];
+        out[0] = JDK;
+        System.arraycopy(jdk, 0, out, 1, jdk.length);
+        return out;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) return null;
+        return switch (bytes[0]) {
+            case NULL -> NullValue.INSTANCE;
+            case LONG -> readVarint(bytes);
+            case INT -> (int) readVarint(bytes);
+            case STRING -> new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+            case JDK -> fallback.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+            default -> throw new SerializationException("Unknown cache value tag " + bytes[0]);
+        };
+    }
+
+    private static byte[] varint(byte tag, long value) {
+        long v = (value << 1) ^ (value >> 63);   // zig-zag: small negatives stay short
+        ByteArrayOutputStream out = new ByteArrayOutputStream(11);
+        out.write(tag);
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+        return out.toByteArray();
+    }
+
+    private static long readVarint(byte[] bytes) {
+        long v = 0;
+        for (int i = 1, shift = 0; i < bytes.length && shift < 64; i++, shift += 7) {
+            v |= (long) (bytes[i] & 0x7F) << shift;
+            if ((bytes[i] & 0x80) == 0) return (v >>> 1) ^ -(v & 1);
+        }
+        throw new SerializationException("Truncated varint");
+    }
+}
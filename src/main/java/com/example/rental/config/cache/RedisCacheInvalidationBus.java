@@ -0,0 +1,74 @@
+package com.example.rental.config.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.function.Consumer;
+
+/**
+ * Redis pub/sub bus on {@value #CHANNEL}, messages as JSON. Pub/sub is fire-and-forget: a node that
+ * is disconnected misses messages, and a failed publish is only logged, so near-cache TTLs bound how
+ * long a missed invalidation can leave a stale copy. The subscription is started (and retried) in the
+ * background rather than at startup, so the application still starts while Redis is unreachable.
+ */
+public class RedisCacheInvalidationBus implements CacheInvalidationBus, DisposableBean {
+
+    static final String CHANNEL = "car-rental:cache-invalidation";
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCacheInvalidationBus.class);
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer container;
+    private final ObjectMapper objectMapper;
+
+    public RedisCacheInvalidationBus(StringRedisTemplate redis, RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        // not a bean, so the context does not start it (and fail) before Redis is reachable
+        this.container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.resubscribe-interval:PT10S}")
+    public void ensureSubscribed() {
+        if (container.isRunning()) return;
+        try {
+            container.start();
+        } catch (Exception e) {
+            log.warn("Cache invalidation channel unavailable, will retry: {}", e.toString());
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        container.destroy();
+    }
+
+    @Override
+    public void publish(CacheInvalidation message) {
+        try {
+            redis.convertAndSend(CHANNEL, objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.warn("Could not publish cache invalidation {}: {}", message, e.toString());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        container.addMessageListener((message, pattern) -> {
+            try {
+                listener.accept(objectMapper.readValue(message.getBody(), CacheInvalidation.class));
+            } catch (Exception e) {
+                log.warn("Dropping unreadable cache invalidation: {}", e.toString());
+            }
+        }, new ChannelTopic(CHANNEL));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.rental.config.cache;
+
+import com.example.rental.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A bounded in-process near cache in front of a shared remote cache. Reads try the near cache first
+ * and fill it from the remote one; writes and evictions go to both and tell the other nodes, over
+ * the bus, to drop their near copy. Near entries are keyed by {@link CacheKey#of}, the same string
+ * the Redis cache uses for its keys.
+ * <p>
+ * Near-cache lookups are published by Caffeine's stats; lookups that reach the remote cache are
+ * counted as {@code cache.remote.requests} tagged with the cache name and {@code result=hit|miss}.
+ * <p>
+ * {@link #get(Object, Callable)} (used by {@code @Cacheable(sync = true)}) runs one loader per key at
+ * a time on this node; concurrent callers for the key share its value.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> near;
+    private final CacheInvalidationBus bus;
+    private final String origin;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final SingleFlight<String, Object> loads = new SingleFlight<>();
+
+    public TwoLevelCache(Cache remote, com.github.benmanes.caffeine.cache.Cache<String, Object> near,
+                         CacheInvalidationBus bus, String origin, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.near = near;
+        this.bus = bus;
+        this.origin = origin;
+        this.remoteHits = meterRegistry.counter("cache.remote.requests", "cache", remote.getName(), "result", "hit");
+        this.remoteMisses = meterRegistry.counter("cache.remote.requests", "cache", remote.getName(), "result", "miss");
+    }
+
+    @Override
+    public String getName() { return remote.getName(); }
+
+    @Override
+    public Object getNativeCache() { return this; }
+
+    public com.github.benmanes.caffeine.cache.Cache<String, Object> near() { return near; }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String k = keyOf(key);
+        Object value = near.getIfPresent(k);
+        if (value != null) return new SimpleValueWrapper(value == NullValue.INSTANCE ? null : value);
+        ValueWrapper fromRemote = remote.get(key);
+        (fromRemote != null ? remoteHits : remoteMisses).increment();
+        if (fromRemote != null) near.put(k, fromRemote.get() == null ? NullValue.INSTANCE : fromRemote.get());
+        return fromRemote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper w = get(key);
+        Object value = w == null ? null : w.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper w = get(key);
+        if (w != null) return (T) w.get();
+        Object value = loads.execute(keyOf(key), () -> {
+            Object loaded;
+            try {
+                loaded = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            put(key, loaded);
+            return loaded == null ? NullValue.INSTANCE : loaded;
+        });
+        return value == NullValue.INSTANCE ? null : (T) value;
+    }
+
+    /** Loader calls that joined a concurrent load of the same key. */
+    public long coalescedLoads() {
+        return loads.coalesced();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        near.put(keyOf(key), value == null ? NullValue.INSTANCE : value);
+        bus.publish(CacheInvalidation.evict(origin, getName(), keyOf(key)));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        near.invalidate(keyOf(key));
+        bus.publish(CacheInvalidation.evict(origin, getName(), keyOf(key)));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        near.invalidateAll();
+        bus.publish(CacheInvalidation.clear(origin, getName()));
+    }
+
+    /** Applies another node's invalidation to the near cache only. */
+    void onInvalidation(CacheInvalidation message) {
+        if (message.isClear()) near.invalidateAll();
+        else if (message.key() != null) near.invalidate(message.key());
+    }
+
+    private static String keyOf(Object key) {
+        return CacheKey.of(key);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.rental.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps every cache of {@code remote} in a {@link TwoLevelCache} with its own Caffeine near cache
+ * (bounded by size and write TTL, published as {@code cache.*} metrics with {@code cache=near.<name>}).
+ * Listens on the bus and drops near entries other nodes have changed.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remote;
+    private final CacheInvalidationBus bus;
+    private final MeterRegistry meterRegistry;
+    private final long nearMaxSize;
+    private final Duration nearTtl;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote, CacheInvalidationBus bus, MeterRegistry meterRegistry,
+                                long nearMaxSize, Duration nearTtl) {
+        this.remote = remote;
+        this.bus = bus;
+        this.meterRegistry = meterRegistry;
+        this.nearMaxSize = nearMaxSize;
+        this.nearTtl = nearTtl;
+        bus.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache existing = caches.get(name);
+        if (existing != null) return existing;
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) return null;
+        return caches.computeIfAbsent(name, n -> {
+            var near = Caffeine.newBuilder().maximumSize(nearMaxSize).expireAfterWrite(nearTtl).recordStats()
+                    .<String, Object>build();
+            CaffeineCacheMetrics.monitor(meterRegistry, near, "near." + n);
+            TwoLevelCache cache = new TwoLevelCache(remoteCache, near, bus, origin, meterRegistry);
+            FunctionCounter.builder("cache.coalesced", cache, TwoLevelCache::coalescedLoads).tag("cache", n).register(meterRegistry);
+            return cache;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    private void onInvalidation(CacheInvalidation message) {
+        if (origin.equals(message.origin())) return;
+        TwoLevelCache cache = caches.get(message.cacheName());
+        if (cache != null) cache.onInvalidation(message);
+    }
+}
@@ -1,10 +1,19 @@
 package com.example.rental.config.jwt;
 
+import com.example.rental.config.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -12,18 +21,58 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Authenticates Bearer tokens. Verified tokens are kept in a bounded cache until they expire (or
+ * {@code app.jwt.cache.ttl}, whichever comes first), so a repeated token costs neither a signature
+ * check nor a user lookup. Tokens carrying the {@code uid} claim never touch the database; older
+ * tokens without it fall back to the {@link UserDetailsService} once per cache lifetime.
+ * <p>
+ * Cache misses are timed as {@code auth.jwt.parse}, tagged {@code result=valid|invalid}.
+ */
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final Cache<String, CachedPrincipal> principals;
+    private final Timer validParse;
+    private final Timer invalidParse;
 
-    public JwtAuthFilter(JwtService jwtService, UserDetailsService uds) {
+    public JwtAuthFilter(JwtService jwtService, UserDetailsService uds, MeterRegistry meterRegistry,
+                         @Value("${app.jwt.cache.max-size:100000}") long maxSize,
+                         @Value("${app.jwt.cache.ttl:PT10M}") Duration ttl) {
         this.jwtService = jwtService;
         this.userDetailsService = uds;
+        this.validParse = Timer.builder("auth.jwt.parse").tag("result", "valid").register(meterRegistry);
+        this.invalidParse = Timer.builder("auth.jwt.parse").tag("result", "invalid").register(meterRegistry);
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String token, CachedPrincipal p, long currentTime) {
+                        long untilExpiry = Math.max(0, p.expiresAtMillis() - System.currentTimeMillis());
+                        return Math.min(ttl.toNanos(), Duration.ofMillis(untilExpiry).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, CachedPrincipal p, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, CachedPrincipal p, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
+    private record CachedPrincipal(UserDetails user, long expiresAtMillis) {}
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -31,9 +80,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
-                String username = jwtService.subject(token);
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserDetails userDetails = principals.get(token, this::authenticate).user();
                     var auth = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(auth);
@@ -42,4 +90,23 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private CachedPrincipal authenticate(String token) {
+        long t0 = System.nanoTime();
+        Claims claims;
+        try {
+            claims = jwtService.verify(token);
+        } catch (RuntimeException e) {
+            invalidParse.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        validParse.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        String username = claims.getSubject();
+        if (username == null) throw new IllegalArgumentException("Token has no subject");
+        Long userId = claims.get(JwtService.USER_ID_CLAIM, Long.class);
+        UserDetails user = userId != null
+                ? new AuthenticatedUser(userId, username, "", List.of(new SimpleGrantedAuthority("ROLE_USER")))
+                : userDetailsService.loadUserByUsername(username);
+        return new CachedPrincipal(user, claims.getExpiration().getTime());
+    }
 }
@@ -1,5 +1,7 @@
 package com.example.rental.config.jwt;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -13,15 +15,17 @@ import java.util.Map;
 @Service
 public class JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String secret;
+    public static final String USER_ID_CLAIM = "uid";
 
-    @Value("${app.jwt.ttlMillis:3600000}")
-    private long ttlMillis;
+    private final long ttlMillis;
+    private final Key key;
+    private final JwtParser parser;
 
-    private Key key() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JwtService(@Value("${app.jwt.secret}") String secret,
+                      @Value("${app.jwt.ttlMillis:3600000}") long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     public String generate(String subject, Map<String, Object> claims) {
@@ -31,12 +35,16 @@ public class JwtService {
                 .addClaims(claims)
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + ttlMillis))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /** Verifies signature and expiry and returns the token's claims. */
+    public Claims verify(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
     public String subject(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return verify(token).getSubject();
     }
 }
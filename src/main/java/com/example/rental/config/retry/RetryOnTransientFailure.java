@@ -0,0 +1,14 @@
+package com.example.rental.config.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the annotated method, and the transaction it starts, when it fails with a serialization,
+ * deadlock, lock or optimistic-locking failure. See {@link TransientFailureRetryAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnTransientFailure {}
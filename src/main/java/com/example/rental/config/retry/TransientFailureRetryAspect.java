@@ -0,0 +1,103 @@
+package com.example.rental.config.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries {@link RetryOnTransientFailure} methods with bounded attempts and jittered exponential
+ * backoff. Ordered ahead of the transaction interceptor so every attempt gets a fresh transaction;
+ * calls that join an outer transaction are not retried here, since the outer one is already doomed.
+ * <p>
+ * Publishes {@code reservation.write.retries} tagged with the failure reason and the outcome
+ * ({@code retried}, {@code recovered} or {@code exhausted}).
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class TransientFailureRetryAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public TransientFailureRetryAspect(MeterRegistry meterRegistry,
+                                       @Value("${app.retry.max-attempts:4}") int maxAttempts,
+                                       @Value("${app.retry.initial-backoff:20ms}") Duration initialBackoff,
+                                       @Value("${app.retry.max-backoff:500ms}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    @Around("@annotation(com.example.rental.config.retry.RetryOnTransientFailure)")
+    public Object retry(ProceedingJoinPoint pjp) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) return pjp.proceed();
+        String lastReason = null;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = pjp.proceed();
+                if (lastReason != null) count(lastReason, "recovered");
+                return result;
+            } catch (RuntimeException e) {
+                String reason = reasonOf(e);
+                if (reason == null) throw e;
+                if (attempt >= maxAttempts) {
+                    count(reason, "exhausted");
+                    throw e;
+                }
+                count(reason, "retried");
+                lastReason = reason;
+                if (!backoff(attempt)) throw e;
+            }
+        }
+    }
+
+    /** Returns the metric tag for a transient failure, or null if {@code e} should not be retried. */
+    static String reasonOf(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getSQLState() != null) {
+                switch (sql.getSQLState()) {
+                    case "40001": return "serialization";
+                    case "40P01": return "deadlock";
+                    case "55P03": return "lock_timeout";
+                    default: break;
+                }
+            }
+        }
+        if (e instanceof OptimisticLockingFailureException) return "optimistic_lock";
+        if (e instanceof PessimisticLockingFailureException) return "lock";
+        return null;
+    }
+
+    // equal jitter: half the exponential delay, plus a random share of the other half
+    private boolean backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void count(String reason, String outcome) {
+        meterRegistry.counter("reservation.write.retries", "reason", reason, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.rental.config.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the replica, unless the current user wrote
+ * recently ({@link ReadYourWritesTracker}); everything else, including work outside a transaction,
+ * goes to the primary. The decision is made when a connection is fetched, so this must sit behind a
+ * {@code LazyConnectionDataSourceProxy}: the transaction's read-only flag is only known once it began.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReadYourWritesTracker tracker;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return readOnly && !tracker.currentUserWroteRecently() ? Target.REPLICA : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.rental.config.routing;
+
+import com.example.rental.config.AuthenticatedUser;
+import com.example.rental.event.ReservationChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remembers users who changed a reservation in the last {@code app.datasource.replica.sticky-window},
+ * so their own reads keep going to the primary until the replica has (very likely) caught up.
+ * Per node: with several nodes behind a balancer that is not sticky, a user's next read can still
+ * land on another node and see the replica.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(@Value("${app.datasource.replica.sticky-window:PT5S}") Duration window,
+                                 @Value("${app.datasource.replica.sticky-max-users:100000}") long maxUsers) {
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(maxUsers).build();
+    }
+
+    @EventListener
+    public void onReservationChanged(ReservationChangedEvent e) {
+        if (e.userId() != null) markWrite(e.userId());
+    }
+
+    public void markWrite(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    /** Whether the authenticated user of the current thread wrote recently. */
+    public boolean currentUserWroteRecently() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof AuthenticatedUser u
+                && u.id() != null && recentWriters.getIfPresent(u.id()) != null;
+    }
+}
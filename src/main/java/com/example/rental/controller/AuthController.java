@@ -1,5 +1,6 @@
 package com.example.rental.controller;
 
+import com.example.rental.config.AuthenticatedUser;
 import com.example.rental.config.jwt.JwtService;
 import com.example.rental.dto.auth.AuthResponse;
 import com.example.rental.dto.auth.LoginRequest;
@@ -31,14 +32,15 @@ public class AuthController {
     @PostMapping("/signup")
     public ResponseEntity<AuthResponse> signup(@Valid @RequestBody SignupRequest req) {
         User u = userService.signup(req.email(), req.password());
-        String token = jwtService.generate(u.getEmail(), Map.of("role", "USER"));
+        String token = jwtService.generate(u.getEmail(), Map.of("role", "USER", JwtService.USER_ID_CLAIM, u.getId()));
         return ResponseEntity.ok(new AuthResponse(token));
     }
 
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest req) {
         Authentication auth = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(req.email(), req.password()));
-        String token = jwtService.generate(req.email(), Map.of("role", "USER"));
+        AuthenticatedUser user = (AuthenticatedUser) auth.getPrincipal();
+        String token = jwtService.generate(user.getUsername(), Map.of("role", "USER", JwtService.USER_ID_CLAIM, user.id()));
         return ResponseEntity.ok(new AuthResponse(token));
     }
 }
@@ -1,55 +1,139 @@
 package com.example.rental.controller;
 
+import com.example.rental.config.AuthenticatedUser;
 import com.example.rental.dto.reservation.*;
 import com.example.rental.model.CarType;
-import com.example.rental.model.User;
+import com.example.rental.model.Reservation;
+import com.example.rental.model.ReservationStatus;
+import com.example.rental.service.AvailabilityCalendarService;
+import com.example.rental.service.IdempotencyService;
+import com.example.rental.service.ReservationQueryService;
 import com.example.rental.service.ReservationService;
-import com.example.rental.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api")
 public class ReservationController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final ReservationService reservationService;
-    private final UserService userService;
+    private final ReservationQueryService queryService;
+    private final AvailabilityCalendarService calendarService;
+    private final IdempotencyService idempotency;
+    private final ObjectMapper objectMapper;
 
-    public ReservationController(ReservationService reservationService, UserService userService) {
+    public ReservationController(ReservationService reservationService, ReservationQueryService queryService,
+                                 AvailabilityCalendarService calendarService, IdempotencyService idempotency,
+                                 ObjectMapper objectMapper) {
         this.reservationService = reservationService;
-        this.userService = userService;
+        this.queryService = queryService;
+        this.calendarService = calendarService;
+        this.idempotency = idempotency;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * With an {@code Idempotency-Key}, a retry of a successful booking returns the original response
+     * (marked {@code Idempotent-Replayed: true}) without booking again; see {@link IdempotencyService}.
+     */
     @PostMapping("/reservations")
-    public ReservationResponse create(@AuthenticationPrincipal UserDetails user,
-                                      @Valid @RequestBody ReservationCreateRequest req) {
-        var r = reservationService.create(userId(user), req);
-        return new ReservationResponse(r.getId(), r.getUserId(), r.getCarType(), r.getStartAt(), r.getEndAt(), r.getDays(), r.getStatus());
+    public ResponseEntity<ReservationResponse> create(@AuthenticationPrincipal AuthenticatedUser user,
+                                                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                      @Valid @RequestBody ReservationCreateRequest req) {
+        if (idempotencyKey == null) return ResponseEntity.ok(toResponse(reservationService.create(user.id(), req)));
+        var outcome = idempotency.execute(user.id(), idempotencyKey, req, ReservationResponse.class,
+                () -> toResponse(reservationService.create(user.id(), req)));
+        var response = ResponseEntity.ok();
+        if (outcome.replayed()) response.header(IDEMPOTENT_REPLAYED, "true");
+        return response.body(outcome.value());
+    }
+
+    /** Books several reservations in one transaction; see {@link BatchMode} for how failures are handled. */
+    @PostMapping("/reservations/batch")
+    public ReservationBatchResponse createBatch(@AuthenticationPrincipal AuthenticatedUser user,
+                                               @Valid @RequestBody ReservationBatchRequest req) {
+        var items = reservationService.createBatch(user.id(), req.mode(), req.items()).stream()
+                .map(o -> new ReservationBatchResponse.Item(o.index(),
+                        o.reservation() == null ? null : toResponse(o.reservation()), o.error()))
+                .toList();
+        int created = (int) items.stream().filter(i -> i.reservation() != null).count();
+        return new ReservationBatchResponse(req.mode(), created, items.size() - created, items);
     }
 
     @PutMapping("/reservations/{id}")
-    public ReservationResponse update(@AuthenticationPrincipal UserDetails user,
+    public ReservationResponse update(@AuthenticationPrincipal AuthenticatedUser user,
                                       @PathVariable Long id,
                                       @Valid @RequestBody ReservationUpdateRequest req) {
-        var r = reservationService.update(userId(user), id, req);
-        return new ReservationResponse(r.getId(), r.getUserId(), r.getCarType(), r.getStartAt(), r.getEndAt(), r.getDays(), r.getStatus());
+        return toResponse(reservationService.update(user.id(), id, req));
     }
 
     @DeleteMapping("/reservations/{id}")
-    public void cancel(@AuthenticationPrincipal UserDetails user, @PathVariable Long id) {
-        reservationService.cancel(userId(user), id);
+    public void cancel(@AuthenticationPrincipal AuthenticatedUser user, @PathVariable Long id) {
+        reservationService.cancel(user.id(), id);
     }
 
+    /**
+     * The caller's reservations ordered by start time. Without {@code limit} or {@code cursor} the
+     * response holds all of them, as before paging existed. With either, it is one page, and when more
+     * remain the cursor for the next page is in {@code X-Next-Cursor} and a
+     * {@code Link: <...>; rel="next"} header.
+     */
     @GetMapping("/reservations/my")
-    public List<ReservationResponse> my(@AuthenticationPrincipal UserDetails user) {
-        return reservationService.listByUser(userId(user))
-                .stream().map(r -> new ReservationResponse(r.getId(), r.getUserId(), r.getCarType(), r.getStartAt(), r.getEndAt(), r.getDays(), r.getStatus()))
-                .toList();
+    public ResponseEntity<List<ReservationResponse>> my(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(value = "status", required = false) ReservationStatus status,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        var filter = new ReservationFilter(status, from, to);
+        if (cursor == null && limit == null) return ResponseEntity.ok(queryService.stream(user.id(), filter).toList());
+        var page = queryService.page(user.id(), filter,
+                cursor == null ? null : ReservationCursor.decode(cursor), limit);
+        var response = ResponseEntity.ok();
+        if (page.next() != null) {
+            String next = page.next().encode();
+            String link = ServletUriComponentsBuilder.fromCurrentRequest().replaceQueryParam("cursor", next).toUriString();
+            response.header("X-Next-Cursor", next).header(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        return response.body(page.items());
+    }
+
+    /** Every matching reservation as newline-delimited JSON, read from the database a page at a time. */
+    @GetMapping(value = "/reservations/my", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> myStream(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(value = "status", required = false) ReservationStatus status,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to
+    ) {
+        var reservations = queryService.stream(user.id(), new ReservationFilter(status, from, to));
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                for (var it = reservations.iterator(); it.hasNext(); ) {
+                    json.writeObject(it.next());
+                    json.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     @GetMapping("/availability")
@@ -65,8 +149,23 @@ public class ReservationController {
         return response;
     }
 
-    private Long userId(UserDetails u) {
-        return userService.findByEmail(u.getUsername()).map(User::getId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @GetMapping("/availability/calendar")
+    public ResponseEntity<StreamingResponseBody> availabilityCalendar(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        var days = calendarService.calendar(from, to);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                for (var it = days.iterator(); it.hasNext(); ) json.writeObject(it.next());
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static ReservationResponse toResponse(Reservation r) {
+        return new ReservationResponse(r.getId(), r.getUserId(), r.getCarType(), r.getStartAt(), r.getEndAt(), r.getDays(), r.getStatus());
     }
 }
@@ -0,0 +1,7 @@
+package com.example.rental.dto.reservation;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/** Cars available on {@code date} (UTC), keyed by car type code. */
+public record AvailabilityCalendarDay(LocalDate date, Map<String, Long> available) {}
@@ -0,0 +1,9 @@
+package com.example.rental.dto.reservation;
+
+/** How a batch treats an item that cannot be booked. */
+public enum BatchMode {
+    /** Any invalid or unavailable item rejects the whole batch; nothing is booked. */
+    ALL_OR_NOTHING,
+    /** Books every item that fits, in request order, and reports the others as rejected. */
+    BEST_EFFORT
+}
@@ -0,0 +1,10 @@
+package com.example.rental.dto.reservation;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record ReservationBatchRequest(@NotNull BatchMode mode,
+                                      @NotEmpty @Size(max = 200) List<@Valid @NotNull ReservationCreateRequest> items) {}
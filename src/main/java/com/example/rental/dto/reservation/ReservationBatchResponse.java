@@ -0,0 +1,10 @@
+package com.example.rental.dto.reservation;
+
+import java.util.List;
+
+/** One result per request item, in request order. */
+public record ReservationBatchResponse(BatchMode mode, int created, int rejected, List<Item> items) {
+
+    /** {@code reservation} is set for booked items, {@code error} for rejected ones. */
+    public record Item(int index, ReservationResponse reservation, String error) {}
+}
@@ -0,0 +1,34 @@
+package com.example.rental.dto.reservation;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position in a user's reservations ordered by {@code (startAt, id)}. Travels as an opaque
+ * url-safe token; {@code startAt} is kept to the microsecond, the precision the database stores.
+ */
+public record ReservationCursor(Instant startAt, long id) {
+
+    public static ReservationCursor after(ReservationResponse last) {
+        return new ReservationCursor(last.startAt(), last.id());
+    }
+
+    public String encode() {
+        long micros = Math.addExact(Math.multiplyExact(startAt.getEpochSecond(), 1_000_000L), startAt.getNano() / 1_000);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((micros + ":" + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static ReservationCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 2) throw new IllegalArgumentException();
+            long micros = Long.parseLong(parts[0]);
+            Instant startAt = Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+            return new ReservationCursor(startAt, Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.rental.dto.reservation;
+
+import com.example.rental.model.ReservationStatus;
+import java.time.Instant;
+
+/** Optional filters for a user's reservations; {@code from}/{@code to} bound {@code startAt} as [from, to). */
+public record ReservationFilter(ReservationStatus status, Instant from, Instant to) {}
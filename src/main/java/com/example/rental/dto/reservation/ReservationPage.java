@@ -0,0 +1,5 @@
+package com.example.rental.dto.reservation;
+
+import java.util.List;
+
+public record ReservationPage(List<ReservationResponse> items, ReservationCursor next) {}
@@ -0,0 +1,10 @@
+package com.example.rental.event;
+
+import com.example.rental.model.ReservationWindow;
+
+/**
+ * Published by ReservationService for every write. {@code before}/{@code after} hold the CONFIRMED
+ * window the reservation occupied before and after the change, or null when it occupied none
+ * (create has no before, cancel has no after).
+ */
+public record ReservationChangedEvent(Long reservationId, Long userId, ReservationWindow before, ReservationWindow after) {}
@@ -0,0 +1,16 @@
+package com.example.rental.event;
+
+import com.example.rental.model.ReservationOutboxEntry.ChangeType;
+import com.example.rental.model.ReservationWindow;
+
+import java.time.Instant;
+
+/**
+ * A committed reservation change, relayed from the outbox by {@code ReservationOutboxService.relay}.
+ * {@code sequence} is the outbox row's {@code feed_seq}: a reservation's changes arrive in increasing
+ * sequence, but changes of different reservations are not in commit order. A change may be delivered
+ * more than once (at least once), so consumers should ignore sequences they have already applied per
+ * reservation.
+ */
+public record ReservationFeedEvent(long sequence, Long reservationId, Long userId, ChangeType changeType,
+                                   ReservationWindow before, ReservationWindow after, Instant occurredAt) {}
@@ -0,0 +1,13 @@
+package com.example.rental.event;
+
+import java.util.List;
+
+/**
+ * External destination for the change feed (a message broker, a webhook, ...). Every bean of this
+ * type receives each relayed batch, in order, before it is marked published; throwing makes the relay
+ * retry the whole batch later.
+ */
+public interface ReservationFeedSink {
+
+    void publish(List<ReservationFeedEvent> batch);
+}
@@ -1,7 +1,10 @@
 package com.example.rental.exception;
 
 import com.example.rental.dto.common.ApiError;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -14,6 +17,12 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiError> handleValidation(MethodArgumentNotValidException ex, HttpServletRequest req) {
         Map<String, String> fields = new HashMap<>();
@@ -30,13 +39,33 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ConflictException.class)
     public ResponseEntity<ApiError> handleConflict(ConflictException ex, HttpServletRequest req) {
+        countConflict("business");
         ApiError body = new ApiError(req.getRequestURI(), 409, ex.getMessage(), Instant.now(), null);
         return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
 
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<ApiError> handleConcurrency(ConcurrencyFailureException ex, HttpServletRequest req) {
+        countConflict("concurrency");
+        ApiError body = new ApiError(req.getRequestURI(), 409, "Concurrent update, please retry", Instant.now(), null);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiError> handleBusy(ServiceBusyException ex, HttpServletRequest req) {
+        ApiError body = new ApiError(req.getRequestURI(), 503, ex.getMessage(), Instant.now(), null);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(body);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiError> handleRuntime(RuntimeException ex, HttpServletRequest req) {
         ApiError body = new ApiError(req.getRequestURI(), 404, ex.getMessage(), Instant.now(), null);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
     }
+
+    // business: ConflictException (no capacity, cancelled reservation, ...); concurrency: lock and
+    // serialization failures still failing after TransientFailureRetryAspect gave up
+    private void countConflict(String kind) {
+        meterRegistry.counter("http.conflicts", "kind", kind).increment();
+    }
 }
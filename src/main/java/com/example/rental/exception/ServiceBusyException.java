@@ -0,0 +1 @@
+package com.example.rental.exception; public class ServiceBusyException extends RuntimeException { public ServiceBusyException(String m){super(m);} }
@@ -0,0 +1,30 @@
+package com.example.rental.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/** Number of CONFIRMED reservations of a car type that overlap a UTC day. */
+@Entity
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@Table(name = "daily_inventory")
+public class DailyInventory {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private int booked;
+
+    @Embeddable
+    @Getter @NoArgsConstructor @AllArgsConstructor @EqualsAndHashCode
+    public static class Key implements Serializable {
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false, length = 16)
+        private CarType carType;
+
+        @Column(name = "inventory_date", nullable = false)
+        private LocalDate date;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.rental.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A claimed {@code Idempotency-Key}: the fingerprint of the request that claimed it and, once that
+ * request succeeded, its response as JSON.
+ */
+@Entity
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@Table(name = "idempotency_keys",
+  indexes = @Index(name = "idx_idempotency_created_at", columnList = "createdAt"))
+public class IdempotencyRecord {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(length = 8000)
+    private String response;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Embeddable
+    @Getter @NoArgsConstructor @AllArgsConstructor @EqualsAndHashCode
+    public static class Key implements Serializable {
+        @Column(nullable = false)
+        private Long userId;
+
+        @Column(name = "idem_key", nullable = false)
+        private String key;
+    }
+}
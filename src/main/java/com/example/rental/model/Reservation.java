@@ -9,10 +9,13 @@ import java.time.Instant;
 @Table(name = "reservations",
   indexes = {
       @Index(name="idx_res_type_window_status", columnList = "carType,startAt,endAt,status"),
-      @Index(name="idx_res_user", columnList = "userId")
+      @Index(name="idx_res_user_start", columnList = "userId,startAt,id")
   })
 public class Reservation {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence rather than IDENTITY, so Hibernate can batch inserts (allocationSize = the sequence increment)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservations_seq")
+    @SequenceGenerator(name = "reservations_seq", sequenceName = "reservations_seq", allocationSize = 50)
     private Long id;
 
     private Long userId;
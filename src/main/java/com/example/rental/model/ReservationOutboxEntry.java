@@ -0,0 +1,63 @@
+package com.example.rental.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/**
+ * One reservation change awaiting (or past) publication. The windows are the CONFIRMED windows
+ * before and after the change, flattened; a missing window has all three columns null. Rows are
+ * relayed in {@code feedSeq} order.
+ */
+@Entity
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(name = "reservation_outbox",
+  indexes = @Index(name = "idx_outbox_published_at", columnList = "publishedAt"))
+public class ReservationOutboxEntry {
+
+    public enum ChangeType { CREATED, UPDATED, CANCELLED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_outbox_seq")
+    @SequenceGenerator(name = "reservation_outbox_seq", sequenceName = "reservation_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    // numbered by the database at insert, unlike the pooled id; null until read back
+    @Column(insertable = false, updatable = false, columnDefinition = "bigint generated by default as identity")
+    private Long feedSeq;
+
+    @Column(nullable = false)
+    private Long reservationId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeType changeType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private CarType beforeCarType;
+    private Instant beforeStartAt;
+    private Instant beforeEndAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private CarType afterCarType;
+    private Instant afterStartAt;
+    private Instant afterEndAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant publishedAt;
+
+    public ReservationWindow before() {
+        return beforeCarType == null ? null : new ReservationWindow(reservationId, beforeCarType, beforeStartAt, beforeEndAt);
+    }
+
+    public ReservationWindow after() {
+        return afterCarType == null ? null : new ReservationWindow(reservationId, afterCarType, afterStartAt, afterEndAt);
+    }
+}
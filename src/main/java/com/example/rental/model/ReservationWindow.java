@@ -0,0 +1,14 @@
+package com.example.rental.model;
+
+import java.time.Instant;
+
+public record ReservationWindow(Long id, CarType carType, Instant startAt, Instant endAt) {
+
+    public static ReservationWindow of(Reservation r) {
+        return new ReservationWindow(r.getId(), r.getCarType(), r.getStartAt(), r.getEndAt());
+    }
+
+    public boolean overlaps(Instant from, Instant to) {
+        return startAt.isBefore(to) && endAt.isAfter(from);
+    }
+}
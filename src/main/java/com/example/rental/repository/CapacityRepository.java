@@ -2,7 +2,9 @@ package com.example.rental.repository;
 
 import com.example.rental.model.Capacity;
 import com.example.rental.model.CarType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
@@ -12,4 +14,8 @@ public interface CapacityRepository extends JpaRepository<Capacity, Long> {
 
     @Query("select coalesce(c.quantity,0) from Capacity c where c.carType = :type")
     Integer quantityByType(CarType type);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Capacity c where c.carType = :type")
+    Optional<Capacity> lockByCarType(CarType type);
 }
@@ -0,0 +1,47 @@
+package com.example.rental.repository;
+
+import com.example.rental.model.CarType;
+import com.example.rental.model.DailyInventory;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyInventoryRepository extends JpaRepository<DailyInventory, DailyInventory.Key> {
+
+    @Query("""
+       select coalesce(max(d.booked), 0) from DailyInventory d
+       where d.id.carType = :type
+         and d.id.date between :from and :to
+    """)
+    int maxBooked(@Param("type") CarType type, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("""
+       update DailyInventory d set d.booked = d.booked + :delta
+       where d.id.carType = :type
+         and d.id.date between :from and :to
+    """)
+    int addBooked(@Param("type") CarType type, @Param("from") LocalDate from, @Param("to") LocalDate to,
+                  @Param("delta") int delta);
+
+    @Query("""
+       select d.id.date from DailyInventory d
+       where d.id.carType = :type
+         and d.id.date between :from and :to
+    """)
+    List<LocalDate> findDates(@Param("type") CarType type, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "insert into daily_inventory (car_type, inventory_date, booked) values (:type, :date, :booked)", nativeQuery = true)
+    void insert(@Param("type") String type, @Param("date") LocalDate date, @Param("booked") int booked);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from DailyInventory d where d.id.date >= :from")
+    List<DailyInventory> lockFrom(@Param("from") LocalDate from);
+}
@@ -0,0 +1,34 @@
+package com.example.rental.repository;
+
+import com.example.rental.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+    // 0 when the key is taken; "do nothing" instead of a unique violation, which would abort the transaction
+    @Modifying
+    @Query(value = """
+       insert into idempotency_keys (user_id, idem_key, fingerprint, created_at)
+       values (:userId, :key, :fingerprint, :at)
+       on conflict do nothing
+    """, nativeQuery = true)
+    int claim(@Param("userId") Long userId, @Param("key") String key, @Param("fingerprint") String fingerprint,
+              @Param("at") Instant at);
+
+    @Modifying
+    @Query("update IdempotencyRecord r set r.response = :response where r.id = :id")
+    int complete(@Param("id") IdempotencyRecord.Key id, @Param("response") String response);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.id = :id and r.response is null")
+    int release(@Param("id") IdempotencyRecord.Key id);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
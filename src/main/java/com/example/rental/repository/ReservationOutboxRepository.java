@@ -0,0 +1,30 @@
+package com.example.rental.repository;
+
+import com.example.rental.model.ReservationOutboxEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReservationOutboxRepository extends JpaRepository<ReservationOutboxEntry, Long> {
+
+    // locked (without skipping), so relays on several nodes take turns and keep the order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from ReservationOutboxEntry e where e.publishedAt is null order by e.feedSeq")
+    List<ReservationOutboxEntry> lockPending(Limit limit);
+
+    @Modifying
+    @Query("update ReservationOutboxEntry e set e.publishedAt = :at where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("at") Instant at);
+
+    @Modifying
+    @Query("delete from ReservationOutboxEntry e where e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") Instant before);
+}
@@ -1,15 +1,24 @@
 package com.example.rental.repository;
 
+import com.example.rental.dto.reservation.ReservationResponse;
 import com.example.rental.model.CarType;
 import com.example.rental.model.Reservation;
 import com.example.rental.model.ReservationStatus;
+import com.example.rental.model.ReservationWindow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Overlap queries take {@code earliestStart}, the window start minus the longest allowed reservation
+ * ({@code app.reservations.max-days}). No overlapping reservation can start at or before it, and the
+ * lower bound on {@code start_at} lets Postgres prune the partitions that only hold older bookings.
+ */
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
 
     @Query("""
@@ -17,14 +26,90 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
        where r.status = :status
          and r.carType = :type
          and r.startAt < :endAt
+         and r.startAt > :earliestStart
          and r.endAt > :startAt
          and (:excludeId is null or r.id <> :excludeId)
     """)
     long countOverlappingByTypeExcluding(@Param("type") CarType type,
                                 @Param("startAt") Instant startAt,
                                 @Param("endAt") Instant endAt,
+                                @Param("earliestStart") Instant earliestStart,
                                 @Param("status") ReservationStatus status,
                                 @Param("excludeId") Long excludeId);
 
-    List<Reservation> findByUserId(Long userId);
+    /**
+     * Same count as {@link #countOverlappingByTypeExcluding} for CONFIRMED rows, answered by the GiST
+     * index on the {@code period} range column. Requires the {@code db/range} migration.
+     */
+    @Query(value = """
+       select count(*) from reservations r
+       where r.status = 'CONFIRMED'
+         and r.car_type = :type
+         and r.period && tsrange(cast(:startAt as timestamp), cast(:endAt as timestamp), '[)')
+         and r.start_at > cast(:earliestStart as timestamp)
+         and (cast(:excludeId as bigint) is null or r.id <> cast(:excludeId as bigint))
+    """, nativeQuery = true)
+    long countConfirmedOverlappingByPeriod(@Param("type") String type,
+                                           @Param("startAt") Instant startAt,
+                                           @Param("endAt") Instant endAt,
+                                           @Param("earliestStart") Instant earliestStart,
+                                           @Param("excludeId") Long excludeId);
+
+    @Query("select max(r.endAt) from Reservation r where r.status = :status")
+    Instant findLatestEnd(@Param("status") ReservationStatus status);
+
+    /** Longest stored reservation in days; overlap queries rely on it being within {@code app.reservations.max-days}. */
+    @Query("select max(r.days) from Reservation r")
+    Integer findMaxDays();
+
+    /** Windows still running or yet to start at {@code after}. */
+    @Query("""
+       select new com.example.rental.model.ReservationWindow(r.id, r.carType, r.startAt, r.endAt)
+       from Reservation r
+       where r.status = :status
+         and r.endAt > :after
+         and r.startAt > :earliestStart
+    """)
+    List<ReservationWindow> findWindowsEndingAfter(@Param("status") ReservationStatus status,
+                                                   @Param("after") Instant after,
+                                                   @Param("earliestStart") Instant earliestStart);
+
+    @Query("""
+       select new com.example.rental.model.ReservationWindow(r.id, r.carType, r.startAt, r.endAt)
+       from Reservation r
+       where r.id = :id and r.status = :status
+    """)
+    Optional<ReservationWindow> findWindowByIdAndStatus(@Param("id") Long id, @Param("status") ReservationStatus status);
+
+    @Query("""
+       select new com.example.rental.model.ReservationWindow(r.id, r.carType, r.startAt, r.endAt)
+       from Reservation r
+       where r.status = :status
+         and r.startAt < :endAt
+         and r.startAt > :earliestStart
+         and r.endAt > :startAt
+    """)
+    List<ReservationWindow> findWindowsOverlapping(@Param("status") ReservationStatus status,
+                                                   @Param("startAt") Instant startAt,
+                                                   @Param("endAt") Instant endAt,
+                                                   @Param("earliestStart") Instant earliestStart);
+
+    /** Keyset page of a user's reservations in {@code (startAt, id)} order, after the given position if any. */
+    @Query("""
+       select new com.example.rental.dto.reservation.ReservationResponse(r.id, r.userId, r.carType, r.startAt, r.endAt, r.days, r.status)
+       from Reservation r
+       where r.userId = :userId
+         and (:status is null or r.status = :status)
+         and (:from is null or r.startAt >= :from)
+         and (:to is null or r.startAt < :to)
+         and (:afterStartAt is null or r.startAt > :afterStartAt or (r.startAt = :afterStartAt and r.id > :afterId))
+       order by r.startAt, r.id
+    """)
+    List<ReservationResponse> findPageByUser(@Param("userId") Long userId,
+                                             @Param("status") ReservationStatus status,
+                                             @Param("from") Instant from,
+                                             @Param("to") Instant to,
+                                             @Param("afterStartAt") Instant afterStartAt,
+                                             @Param("afterId") Long afterId,
+                                             Limit limit);
 }
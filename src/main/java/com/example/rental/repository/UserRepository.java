@@ -2,9 +2,15 @@ package com.example.rental.repository;
 
 import com.example.rental.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
-    boolean existsByEmail(String email);
+
+    @Modifying
+    @Query("update User u set u.passwordHash = :hash where u.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("hash") String hash);
 }
@@ -0,0 +1,187 @@
+package com.example.rental.service;
+
+import com.example.rental.config.cache.CacheInvalidation;
+import com.example.rental.config.cache.CacheInvalidationBus;
+import com.example.rental.event.ReservationChangedEvent;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * The "availability" cache, keyed by {@link AvailabilityKey}. Every key this node stores is remembered
+ * in a per-car-type registry ordered by start, so a committed reservation change evicts only the keys
+ * whose window overlaps the old or the new reservation window instead of clearing the whole cache.
+ * {@code app.availability.cache.slot} is the spacing of the starts {@link AvailabilityWarmupService}
+ * precomputes; queries on those boundaries share the warmed keys.
+ * <p>
+ * Other nodes store keys in the shared cache that this node's registry never saw, so changed windows
+ * are also broadcast on the {@link CacheInvalidationBus}; each node evicts its own overlapping keys.
+ * <p>
+ * Misses are loaded single-flight per key: while one request computes a key, concurrent requests
+ * for it wait and share the result ({@code availability.cache.coalesced}) instead of each running
+ * the query. The lookup before it covers both cache tiers, so this bounds loads to one per key and
+ * node at a time.
+ * <p>
+ * A load can race a write: it reads the old occupancy, the write commits and evicts, then the load
+ * stores its stale value. Every eviction first bumps a per-car-type generation; a load stores its
+ * value and then evicts it again if the generation moved since the load began. An eviction that
+ * bumps after that check scans the registry after the key was registered, so it finds the key
+ * itself. {@link #put(AvailabilityKey, long, long)} gives precomputed values the same check. This
+ * listener runs after {@link OccupancyIndex}'s, so loads starting after an eviction see the change.
+ */
+@Service
+public class AvailabilityCache {
+
+    static final String CACHE_NAME = "availability";
+
+    private final Cache cache;
+    private final CacheInvalidationBus bus;
+    private final String origin = UUID.randomUUID().toString();
+    private final Duration slot;
+    private final Map<CarType, NavigableMap<Instant, Set<AvailabilityKey>>> registry = new EnumMap<>(CarType.class);
+    private final AtomicInteger maxDays = new AtomicInteger();
+    private final Map<CarType, AtomicLong> generations = new EnumMap<>(CarType.class);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final SingleFlight<AvailabilityKey, Long> loads = new SingleFlight<>();
+    private final List<Consumer<AvailabilityKey>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    public AvailabilityCache(CacheManager cacheManager, CacheInvalidationBus bus, MeterRegistry meterRegistry,
+                             @Value("${app.availability.cache.slot:PT1H}") Duration slot) {
+        if (slot.isNegative() || slot.isZero() || Duration.ofDays(1).toMillis() % slot.toMillis() != 0) {
+            throw new IllegalArgumentException("app.availability.cache.slot must divide a day: " + slot);
+        }
+        Cache c = cacheManager.getCache(CACHE_NAME);
+        this.cache = c != null ? c : new NoOpCache(CACHE_NAME);
+        this.bus = bus;
+        this.slot = slot;
+        for (CarType t : CarType.values()) {
+            registry.put(t, new ConcurrentSkipListMap<>());
+            generations.put(t, new AtomicLong());
+        }
+        this.hits = Counter.builder("availability.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("availability.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("availability.cache.evictions").register(meterRegistry);
+        FunctionCounter.builder("availability.cache.coalesced", loads, SingleFlight::coalesced).register(meterRegistry);
+        bus.subscribe(this::onInvalidation);
+    }
+
+    public Duration slot() { return slot; }
+
+    /** Called with each key this node evicts because a reservation window overlaps it. */
+    public void onEviction(Consumer<AvailabilityKey> listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * Returns the cached availability for the query's key, computing it with {@code loader} over the
+     * key's window on a miss.
+     */
+    public long get(CarType type, Instant startAt, int days, ToLongBiFunction<Instant, Instant> loader) {
+        AvailabilityKey key = new AvailabilityKey(type, startAt, days);
+        Long cached = cache.get(key, Long.class);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        return loads.execute(key, () -> {
+            misses.increment();
+            long generation = generation(type);
+            long value = loader.applyAsLong(key.windowStart(), key.windowEnd());
+            put(key, value, generation);
+            return value;
+        });
+    }
+
+    /** Eviction generation of {@code type}; read it before computing a value for {@link #put}. */
+    public long generation(CarType type) {
+        return generations.get(type).get();
+    }
+
+    /**
+     * Stores a value computed elsewhere for {@code key}, unless an eviction for its car type happened
+     * since {@code generation} was read; then the value may predate that write and is dropped.
+     * Returns whether the value stayed cached.
+     */
+    public boolean put(AvailabilityKey key, long value, long generation) {
+        register(key);
+        cache.put(key, value);
+        if (generation(key.carType()) == generation) return true;
+        cache.evict(key);
+        return false;
+    }
+
+    @Order(OccupancyIndex.LISTENER_ORDER + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent e) {
+        for (ReservationWindow w : new ReservationWindow[]{e.before(), e.after()}) {
+            if (w == null) continue;
+            evictOverlapping(w);
+            bus.publish(CacheInvalidation.window(origin, CACHE_NAME, w));
+        }
+    }
+
+    private void onInvalidation(CacheInvalidation message) {
+        if (message.window() != null && CACHE_NAME.equals(message.cacheName()) && !origin.equals(message.origin())) {
+            evictOverlapping(message.window());
+        }
+    }
+
+    /** Evicts every registered key of the window's car type whose window overlaps it. */
+    public void evictOverlapping(ReservationWindow w) {
+        generations.get(w.carType()).incrementAndGet();
+        Instant earliest = w.startAt().minus(maxDays.get(), ChronoUnit.DAYS);
+        var candidates = registry.get(w.carType()).subMap(earliest, true, w.endAt(), false);
+        candidates.forEach((start, keys) -> keys.removeIf(key -> {
+            if (!w.overlaps(key.windowStart(), key.windowEnd())) return false;
+            cache.evict(key);
+            evictions.increment();
+            evictionListeners.forEach(l -> l.accept(key));
+            return true;
+        }));
+    }
+
+    /** Forgets keys whose whole window is in the past; reservations can no longer start there. */
+    @Scheduled(fixedDelayString = "${app.availability.cache.prune-interval:PT1H}")
+    public void pruneRegistry() {
+        Instant now = Instant.now();
+        registry.values().forEach(byStart -> byStart.headMap(now).entrySet().removeIf(en -> {
+            en.getValue().removeIf(key -> !key.windowEnd().isAfter(now));
+            return en.getValue().isEmpty();
+        }));
+    }
+
+    private void register(AvailabilityKey key) {
+        registry.get(key.carType()).computeIfAbsent(key.startAt(), s -> ConcurrentHashMap.newKeySet()).add(key);
+        maxDays.accumulateAndGet(key.days(), Math::max);
+    }
+}
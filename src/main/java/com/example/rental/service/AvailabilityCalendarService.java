@@ -0,0 +1,82 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.reservation.AvailabilityCalendarDay;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationStatus;
+import com.example.rental.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Per-day availability of every car type over a date range. Occupancy comes from the in-memory index
+ * when it is loaded, otherwise from one range scan of reservations; days are then produced lazily.
+ */
+@Service
+public class AvailabilityCalendarService {
+
+    private final ReservationRepository reservationRepository;
+    private final CapacityService capacityService;
+    private final OccupancyIndex occupancyIndex;
+    private final int maxDays;
+    private final int maxReservationDays;
+
+    public AvailabilityCalendarService(ReservationRepository reservationRepository,
+                                       CapacityService capacityService,
+                                       OccupancyIndex occupancyIndex,
+                                       @Value("${app.availability.calendar.max-days:366}") int maxDays,
+                                       @Value("${app.reservations.max-days:365}") int maxReservationDays) {
+        this.reservationRepository = reservationRepository;
+        this.capacityService = capacityService;
+        this.occupancyIndex = occupancyIndex;
+        this.maxDays = maxDays;
+        this.maxReservationDays = maxReservationDays;
+    }
+
+    /** Days from {@code from} to {@code to}, both inclusive. */
+    @Transactional(readOnly = true)
+    public Stream<AvailabilityCalendarDay> calendar(LocalDate from, LocalDate to) {
+        if (from == null || to == null) throw new IllegalArgumentException("from and to are required");
+        if (to.isBefore(from)) throw new IllegalArgumentException("to must not be before from");
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > maxDays) throw new IllegalArgumentException("range must not exceed " + maxDays + " days");
+
+        Map<CarType, OccupancySnapshot> occupancy = occupancy(startOf(from), startOf(to.plusDays(1)));
+        Map<CarType, Long> capacity = new EnumMap<>(CarType.class);
+        for (CarType t : CarType.values()) capacity.put(t, capacityService.capacityOf(t));
+
+        return Stream.iterate(from, d -> d.plusDays(1)).limit(days).map(date -> {
+            Instant start = startOf(date), end = startOf(date.plusDays(1));
+            Map<String, Long> available = new LinkedHashMap<>();
+            for (CarType t : CarType.values()) {
+                long overlapping = occupancy.get(t).countOverlapping(start, end, null);
+                available.put(t.getCode(), Math.max(0, capacity.get(t) - overlapping));
+            }
+            return new AvailabilityCalendarDay(date, available);
+        });
+    }
+
+    private Map<CarType, OccupancySnapshot> occupancy(Instant startAt, Instant endAt) {
+        if (occupancyIndex.covers(startAt)) {
+            Map<CarType, OccupancySnapshot> out = new EnumMap<>(CarType.class);
+            for (CarType t : CarType.values()) out.put(t, occupancyIndex.snapshot(t));
+            return out;
+        }
+        return OccupancySnapshot.byCarType(
+                reservationRepository.findWindowsOverlapping(ReservationStatus.CONFIRMED, startAt, endAt,
+                        startAt.minus(maxReservationDays, ChronoUnit.DAYS)));
+    }
+
+    private static Instant startOf(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.rental.service;
+
+import com.example.rental.config.cache.CacheKey;
+import com.example.rental.model.CarType;
+import com.example.rental.util.TimeUtil;
+
+import java.time.Instant;
+
+/**
+ * Availability cache key: car type, start and duration, for the exact booking window [startAt,
+ * startAt + days). Bookings may start at any instant, so starts are not rounded to a slot: a widened
+ * window would count bookings that end before the queried start. Queries and warm-up for the same
+ * slot boundary share a key; any other start has a key of its own.
+ */
+public record AvailabilityKey(CarType carType, Instant startAt, int days) implements CacheKey {
+
+    public Instant windowStart() { return startAt; }
+
+    public Instant windowEnd() {
+        return TimeUtil.endFromStartAndDays(startAt, days);
+    }
+
+    /**
+     * {@code SEDAN.<start epoch millis, base 36>[_<nanos within the milli>].<days>}, e.g.
+     * {@code SUV.lqyc5rk0.3}.
+     */
+    @Override
+    public String cacheKey() {
+        StringBuilder key = new StringBuilder(carType.name()).append('.').append(Long.toString(startAt.toEpochMilli(), 36));
+        int subMillis = startAt.getNano() % 1_000_000;
+        if (subMillis != 0) key.append('_').append(subMillis);
+        return key.append('.').append(days).toString();
+    }
+
+    @Override
+    public String toString() {
+        return carType + ":" + startAt + ":" + days;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.rental.service;
+
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationStatus;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Precomputes the availability cache for every car type, each slot start
+ * ({@code app.availability.cache.slot}) in the next {@code app.availability.warmup.horizon-days} and each
+ * of {@code app.availability.warmup.durations}.
+ * <p>
+ * All values come from one range scan of the CONFIRMED windows that can overlap the horizon, counted in
+ * memory with {@link OccupancySnapshot}s. The startup pass is an {@link ApplicationRunner}, so it
+ * finishes before Spring Boot marks the application ready ({@code /actuator/health/readiness}); a
+ * failure is logged and startup goes on with a cold cache.
+ * <p>
+ * The refresh on {@code app.availability.warmup.refresh-interval} is incremental: it scans again but
+ * only writes keys that are new to the horizon, whose value changed, that a reservation change evicted
+ * since ({@link AvailabilityCache#onEviction}, even if the change was later reverted), or whose last
+ * write is about to expire from the remote cache ({@code app.cache.remote-ttl}). Slots that have
+ * passed are forgotten.
+ * Values are written with {@link AvailabilityCache#put(AvailabilityKey, long, long)} against the
+ * generations read before the scan, so a pass that overlaps a committing write drops that car type's
+ * values instead of overwriting the write's eviction; the next pass writes them again.
+ */
+@Service
+public class AvailabilityWarmupService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityWarmupService.class);
+
+    private final ReservationRepository reservationRepository;
+    private final CapacityService capacityService;
+    private final AvailabilityCache availabilityCache;
+    private final TransactionTemplate primaryTx;
+    private final boolean enabled;
+    private final int horizonDays;
+    private final int[] durations;
+    private final Duration rewriteAfter;
+    private final int maxReservationDays;
+    private final Timer startupTimer;
+    private final Timer refreshTimer;
+    private final Counter writes;
+
+    private final Map<AvailabilityKey, Written> written = new ConcurrentHashMap<>();
+    private final ReentrantLock running = new ReentrantLock();
+
+    private record Written(long value, Instant at) {}
+
+    public AvailabilityWarmupService(ReservationRepository reservationRepository, CapacityService capacityService,
+                                     AvailabilityCache availabilityCache, PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.availability.warmup.enabled:false}") boolean enabled,
+                                     @Value("${app.availability.warmup.horizon-days:7}") int horizonDays,
+                                     @Value("${app.availability.warmup.durations:1,2,3,7}") int[] durations,
+                                     @Value("${app.availability.warmup.refresh-interval:PT5M}") Duration refreshInterval,
+                                     @Value("${app.cache.remote-ttl:PT10M}") Duration remoteTtl,
+                                     @Value("${app.reservations.max-days:365}") int maxReservationDays) {
+        if (horizonDays < 1) throw new IllegalArgumentException("app.availability.warmup.horizon-days must be >= 1");
+        if (durations.length == 0 || Arrays.stream(durations).anyMatch(d -> d < 1 || d > maxReservationDays)) {
+            throw new IllegalArgumentException("app.availability.warmup.durations must be between 1 and " + maxReservationDays
+                    + ": " + Arrays.toString(durations));
+        }
+        this.reservationRepository = reservationRepository;
+        this.capacityService = capacityService;
+        this.availabilityCache = availabilityCache;
+        this.primaryTx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.horizonDays = horizonDays;
+        this.durations = durations.clone();
+        // rewrite before the remote copy expires, one refresh ahead
+        Duration margin = remoteTtl.minus(refreshInterval);
+        this.rewriteAfter = margin.isNegative() ? Duration.ZERO : margin;
+        this.maxReservationDays = maxReservationDays;
+        this.startupTimer = Timer.builder("availability.warmup").tag("phase", "startup").register(meterRegistry);
+        this.refreshTimer = Timer.builder("availability.warmup").tag("phase", "refresh").register(meterRegistry);
+        this.writes = Counter.builder("availability.warmup.writes").register(meterRegistry);
+        availabilityCache.onEviction(written::remove);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        try {
+            int n = startupTimer.record(() -> warm(Instant.now()));
+            log.info("Availability cache warmed: {} keys over {} days", n, horizonDays);
+        } catch (RuntimeException e) {
+            log.warn("Availability cache warm-up failed, starting with a cold cache", e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.availability.warmup.refresh-interval:PT5M}",
+               fixedDelayString = "${app.availability.warmup.refresh-interval:PT5M}")
+    public void refresh() {
+        if (!enabled) return;
+        int n = refreshTimer.record(() -> warm(Instant.now()));
+        log.debug("Availability cache refresh wrote {} keys", n);
+    }
+
+    /**
+     * Computes every key of the horizon starting at {@code now}'s slot and writes those that are due.
+     * Returns the number written; 0 if another pass is running.
+     */
+    public int warm(Instant now) {
+        if (!running.tryLock()) return 0;
+        try {
+            Duration slot = availabilityCache.slot();
+            Instant from = Instant.ofEpochMilli(now.toEpochMilli() - Math.floorMod(now.toEpochMilli(), slot.toMillis()));
+            Instant horizonEnd = from.plus(horizonDays, ChronoUnit.DAYS);
+            int longest = Arrays.stream(durations).max().orElseThrow();
+            Instant to = horizonEnd.plus(longest, ChronoUnit.DAYS);
+
+            Map<CarType, Long> generations = new EnumMap<>(CarType.class);
+            for (CarType type : CarType.values()) generations.put(type, availabilityCache.generation(type));
+            // not read-only: a lagging replica would put counts from before a booking back into the cache
+            List<ReservationWindow> windows = primaryTx.execute(s -> reservationRepository.findWindowsOverlapping(
+                    ReservationStatus.CONFIRMED, from, to, from.minus(maxReservationDays, ChronoUnit.DAYS)));
+            Map<CarType, OccupancySnapshot> occupancy = OccupancySnapshot.byCarType(windows);
+
+            written.keySet().removeIf(key -> key.startAt().isBefore(from));
+            int n = 0;
+            for (CarType type : CarType.values()) {
+                long capacity = capacityService.capacityOf(type);
+                long generation = generations.get(type);
+                OccupancySnapshot snapshot = occupancy.get(type);
+                for (Instant s = from; s.isBefore(horizonEnd); s = s.plus(slot)) {
+                    for (int days : durations) {
+                        AvailabilityKey key = new AvailabilityKey(type, s, days);
+                        long value = Math.max(0, capacity - snapshot.countOverlapping(key.windowStart(), key.windowEnd(), null));
+                        if (write(key, value, generation, now)) n++;
+                    }
+                }
+            }
+            writes.increment(n);
+            return n;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private boolean write(AvailabilityKey key, long value, long generation, Instant now) {
+        Written last = written.get(key);
+        if (last != null && last.value() == value && last.at().plus(rewriteAfter).isAfter(now)) return false;
+        if (!availabilityCache.put(key, value, generation)) {
+            written.remove(key);
+            return false;
+        }
+        written.put(key, new Written(value, now));
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.rental.service;
+
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.repository.CapacityRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Serialises bookings that could compete for the same cars, so the availability check and the insert
+ * can run at READ COMMITTED. Locks are held until the surrounding transaction ends.
+ * <ul>
+ *   <li>{@code advisory} (Postgres): one {@code pg_advisory_xact_lock} per (car type, bucket) the window
+ *   touches, taken in ascending order. Two overlapping windows always share a bucket; bookings for
+ *   other car types or other buckets ({@code app.booking.lock-bucket}, a week by default) run in parallel.</li>
+ *   <li>{@code row}: {@code SELECT ... FOR UPDATE} on the car type's capacities row. Portable, but
+ *   serialises all bookings of a car type.</li>
+ * </ul>
+ */
+@Service
+public class BookingLockService {
+
+    // high word of the two-int advisory lock key, "RES" + car type ordinal
+    private static final int ADVISORY_NAMESPACE = 0x52455300;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CapacityRepository capacityRepository;
+    private final String mode;
+    private final long bucketSeconds;
+
+    public BookingLockService(JdbcTemplate jdbcTemplate, CapacityRepository capacityRepository,
+                              @Value("${app.booking.lock:row}") String mode,
+                              @Value("${app.booking.lock-bucket:P7D}") Duration bucket) {
+        if (!mode.equals("advisory") && !mode.equals("row")) {
+            throw new IllegalArgumentException("app.booking.lock must be advisory or row: " + mode);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacityRepository = capacityRepository;
+        this.mode = mode;
+        this.bucketSeconds = bucket.toSeconds();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lock(CarType type, Instant startAt, Instant endAt) {
+        lockAll(List.of(new ReservationWindow(null, type, startAt, endAt)));
+    }
+
+    /**
+     * Locks for several windows at once. Every lock is taken in one global order (car type, then
+     * bucket), so two batches with interleaved windows cannot deadlock each other.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockAll(Collection<ReservationWindow> windows) {
+        if (mode.equals("row")) {
+            windows.stream().map(ReservationWindow::carType).distinct().sorted()
+                    .forEach(capacityRepository::lockByCarType);
+            return;
+        }
+        SortedSet<Long> keys = new TreeSet<>();
+        for (ReservationWindow w : windows) {
+            long first = Math.floorDiv(w.startAt().getEpochSecond(), bucketSeconds);
+            long last = Math.floorDiv(w.endAt().minusNanos(1).getEpochSecond(), bucketSeconds);
+            for (long bucket = first; bucket <= last; bucket++) keys.add(((long) w.carType().ordinal() << 32) | (bucket & 0xFFFFFFFFL));
+        }
+        for (long key : keys) {
+            jdbcTemplate.queryForList("select pg_advisory_xact_lock(?, ?)", ADVISORY_NAMESPACE + (int) (key >>> 32), (int) key);
+        }
+    }
+}
@@ -2,13 +2,19 @@ package com.example.rental.service;
 
 import com.example.rental.model.CarType;
 import com.example.rental.repository.CapacityRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CapacityService {
+    public static final String CAPACITY_CACHE = "capacity";
+
     private final CapacityRepository capacityRepository;
     public CapacityService(CapacityRepository capacityRepository) { this.capacityRepository = capacityRepository; }
 
+    // capacities change only by hand in the database; entries expire with the cache TTLs. sync: one
+    // load per key at a time when an entry expires under load
+    @Cacheable(cacheNames = CAPACITY_CACHE, sync = true)
     public long capacityOf(CarType type) {
         Integer q = capacityRepository.quantityByType(type);
         return q == null ? 0L : q.longValue();
@@ -0,0 +1,143 @@
+package com.example.rental.service;
+
+import com.example.rental.event.ReservationChangedEvent;
+import com.example.rental.model.CarType;
+import com.example.rental.model.DailyInventory;
+import com.example.rental.model.ReservationStatus;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.repository.DailyInventoryRepository;
+import com.example.rental.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains {@code daily_inventory}: per car type and UTC day, how many CONFIRMED reservations
+ * overlap that day. Rows are adjusted by {@link ReservationChangedEvent}s inside the writing
+ * transaction, so they commit or roll back with the reservation. New rows are only inserted for a
+ * booked window, which runs under the booking lock for those days, or by the rebuild, which takes
+ * the same locks first.
+ * <p>
+ * Reads are day-granular: a window's booked count is the busiest day it touches, which can only
+ * overstate occupancy for windows that do not start and end at midnight UTC.
+ */
+@Service
+public class DailyInventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyInventoryService.class);
+
+    private final DailyInventoryRepository inventoryRepository;
+    private final ReservationRepository reservationRepository;
+    private final BookingLockService bookingLocks;
+    private final boolean enabled;
+    private final int maxReservationDays;
+
+    public DailyInventoryService(DailyInventoryRepository inventoryRepository,
+                                 ReservationRepository reservationRepository, BookingLockService bookingLocks,
+                                 @Value("${app.availability.inventory.enabled:true}") boolean enabled,
+                                 @Value("${app.reservations.max-days:365}") int maxReservationDays) {
+        this.inventoryRepository = inventoryRepository;
+        this.reservationRepository = reservationRepository;
+        this.bookingLocks = bookingLocks;
+        this.enabled = enabled;
+        this.maxReservationDays = maxReservationDays;
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /** Highest number of reservations on any day the window touches. */
+    public long maxBooked(CarType type, Instant startAt, Instant endAt) {
+        return inventoryRepository.maxBooked(type, firstDay(startAt), lastDay(endAt));
+    }
+
+    @EventListener
+    @Transactional
+    public void onReservationChanged(ReservationChangedEvent e) {
+        if (!enabled) return;
+        if (e.before() != null) add(e.before(), -1);
+        if (e.after() != null) add(e.after(), 1);
+    }
+
+    /**
+     * Recomputes every row from today on from the reservations table. The booking locks of every car
+     * type up to the latest booked day are taken first, then today's and later rows, so in-flight
+     * bookings either commit before the recount sees them or wait for it; neither side can insert a
+     * day the other is inserting. A booking past the latest end read here inserts only days the
+     * rebuild leaves alone.
+     */
+    @Scheduled(cron = "${app.availability.inventory.rebuild-cron:0 30 3 * * *}")
+    @Transactional
+    public void rebuild() {
+        if (!enabled) return;
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Instant todayStart = today.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant latestEnd = reservationRepository.findLatestEnd(ReservationStatus.CONFIRMED);
+        if (latestEnd != null && latestEnd.isAfter(todayStart)) {
+            List<ReservationWindow> all = new ArrayList<>();
+            for (CarType t : CarType.values()) all.add(new ReservationWindow(null, t, todayStart, latestEnd));
+            bookingLocks.lockAll(all);
+        }
+        List<DailyInventory> rows = inventoryRepository.lockFrom(today);
+
+        Map<DailyInventory.Key, Integer> expected = new HashMap<>();
+        for (ReservationWindow w : reservationRepository.findWindowsEndingAfter(ReservationStatus.CONFIRMED,
+                todayStart, todayStart.minus(maxReservationDays, ChronoUnit.DAYS))) {
+            LocalDate last = lastDay(w.endAt());
+            for (LocalDate d = max(firstDay(w.startAt()), today); !d.isAfter(last); d = d.plusDays(1)) {
+                expected.merge(new DailyInventory.Key(w.carType(), d), 1, Integer::sum);
+            }
+        }
+
+        int changed = 0;
+        for (DailyInventory row : rows) {
+            int booked = expected.getOrDefault(row.getId(), 0);
+            expected.remove(row.getId());
+            if (row.getBooked() != booked) {
+                row.setBooked(booked);
+                changed++;
+            }
+        }
+        expected.forEach((key, booked) -> inventoryRepository.insert(key.getCarType().name(), key.getDate(), booked));
+        changed += expected.size();
+        if (changed > 0) log.warn("Daily inventory rebuilt, {} rows corrected", changed);
+    }
+
+    private void add(ReservationWindow w, int delta) {
+        LocalDate from = firstDay(w.startAt()), to = lastDay(w.endAt());
+        int updated = inventoryRepository.addBooked(w.carType(), from, to, delta);
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (updated == days || delta < 0) return;
+        Set<LocalDate> present = new HashSet<>(inventoryRepository.findDates(w.carType(), from, to));
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            if (!present.contains(d)) inventoryRepository.insert(w.carType().name(), d, delta);
+        }
+    }
+
+    private static LocalDate firstDay(Instant startAt) {
+        return LocalDate.ofInstant(startAt, ZoneOffset.UTC);
+    }
+
+    // end is exclusive: a window ending at midnight does not touch the next day
+    private static LocalDate lastDay(Instant endAt) {
+        return LocalDate.ofInstant(endAt.minusNanos(1), ZoneOffset.UTC);
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.rental.service;
+
+import com.example.rental.exception.ConflictException;
+import com.example.rental.model.IdempotencyRecord;
+import com.example.rental.repository.IdempotencyRecordRepository;
+import com.example.rental.util.SingleFlight;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * {@code Idempotency-Key} handling. A key is scoped to its user, bound to a fingerprint of the
+ * request, and remembers the successful result for {@code app.idempotency.ttl}. A retry with the same
+ * key gets that result back without running the action again; concurrent requests with the same key
+ * on one node share one execution. Failures are not stored, so a retry after an error runs again.
+ * <p>
+ * Keys are shared by all nodes through the {@code idempotency_keys} table: the first request claims
+ * its key there before running, and stores its response once it succeeded. A retry on another node
+ * replays that response, or gets a 409 while the first attempt is still running. Completed results are
+ * also kept in a bounded in-memory store ({@code app.idempotency.max-keys}) so a replay on the same
+ * node skips the database. The fingerprint is a hash of the request re-serialised from its parsed
+ * form, so formatting and property order of the body do not matter.
+ * <p>
+ * Publishes {@code idempotency.requests} tagged {@code result=executed|replayed} and
+ * {@code idempotency.coalesced} for requests that waited on a concurrent duplicate on the same node.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    public record Outcome<T>(T value, boolean replayed) {}
+
+    private record Stored(String fingerprint, Object value) {}
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final Duration ttl;
+    private final Cache<String, Stored> completed;
+    private final SingleFlight<String, Stored> inFlight = new SingleFlight<>();
+    private final Counter executed;
+    private final Counter replayed;
+
+    public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${app.idempotency.max-keys:100000}") long maxKeys) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.completed = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxKeys).build();
+        this.executed = meterRegistry.counter("idempotency.requests", "result", "executed");
+        this.replayed = meterRegistry.counter("idempotency.requests", "result", "replayed");
+        FunctionCounter.builder("idempotency.coalesced", inFlight, SingleFlight::coalesced).register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code action} once per ({@code userId}, {@code key}); {@code request} identifies the
+     * request, and reusing a key for a different request is rejected. {@code type} reads back a result
+     * stored by another node.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(Long userId, String key, Object request, Class<T> type, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(request);
+        String scoped = userId + ":" + key;
+        Stored stored = completed.getIfPresent(scoped);
+        boolean[] ran = {false};
+        if (stored == null) {
+            stored = inFlight.execute(scoped, () -> {
+                Stored done = completed.getIfPresent(scoped);
+                if (done != null) return done;
+                IdempotencyRecord.Key id = new IdempotencyRecord.Key(userId, key);
+                Optional<IdempotencyRecord> taken = claim(id, fingerprint);
+                if (taken.isPresent()) return replay(scoped, taken.get(), fingerprint, type);
+                Stored result = new Stored(fingerprint, run(id, action));
+                completed.put(scoped, result);
+                ran[0] = true;
+                return result;
+            });
+        }
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+        }
+        (ran[0] ? executed : replayed).increment();
+        return new Outcome<>((T) stored.value(), !ran[0]);
+    }
+
+    @Scheduled(cron = "${app.idempotency.purge-cron:0 50 * * * *}")
+    public void purge() {
+        Integer deleted = tx.execute(s -> repository.deleteCreatedBefore(Instant.now().minus(ttl)));
+        if (deleted != null && deleted > 0) log.info("Deleted {} expired idempotency keys", deleted);
+    }
+
+    // empty if this request now holds the key, else the record of whoever does
+    private Optional<IdempotencyRecord> claim(IdempotencyRecord.Key id, String fingerprint) {
+        return tx.execute(s -> {
+            if (repository.claim(id.getUserId(), id.getKey(), fingerprint, Instant.now()) == 1) return Optional.empty();
+            // released between the insert and this read: the holder failed, so the caller may retry
+            return Optional.of(repository.findById(id).orElseThrow(() ->
+                    new ConflictException("A request with this Idempotency-Key just failed, please retry")));
+        });
+    }
+
+    private <T> T run(IdempotencyRecord.Key id, Supplier<T> action) {
+        T value;
+        try {
+            value = action.get();
+        } catch (RuntimeException e) {
+            try {
+                tx.executeWithoutResult(s -> repository.release(id));
+            } catch (RuntimeException releaseFailure) {
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(value);
+            tx.executeWithoutResult(s -> repository.complete(id, json));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // the action succeeded; retries on other nodes get 409 until the key expires
+            log.warn("Could not store the result for Idempotency-Key {} of user {}", id.getKey(), id.getUserId(), e);
+        }
+        return value;
+    }
+
+    private <T> Stored replay(String scoped, IdempotencyRecord record, String fingerprint, Class<T> type) {
+        if (!record.getFingerprint().equals(fingerprint)) return new Stored(record.getFingerprint(), null);
+        if (record.getResponse() == null) {
+            throw new ConflictException("A request with this Idempotency-Key is still in progress, please retry");
+        }
+        try {
+            Stored stored = new Stored(fingerprint, objectMapper.readValue(record.getResponse(), type));
+            completed.put(scoped, stored);
+            return stored;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable stored result for Idempotency-Key " + record.getId().getKey(), e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] canonical = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+}
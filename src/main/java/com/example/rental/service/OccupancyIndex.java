@@ -0,0 +1,213 @@
+package com.example.rental.service;
+
+import com.example.rental.config.cache.CacheInvalidation;
+import com.example.rental.config.cache.CacheInvalidationBus;
+import com.example.rental.event.ReservationChangedEvent;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationStatus;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process copy of the CONFIRMED reservation windows per car type, used to answer availability
+ * reads without a COUNT query. The database stays the source of truth: the index is loaded from it
+ * at startup, kept in step by {@link ReservationChangedEvent}s after commit, and periodically
+ * compared against it ({@code app.availability.index.reconcile}: off, verify or repair).
+ * <p>
+ * Only windows ending after a cutoff (a day before the last load or reconcile) are held, so memory
+ * follows current and future bookings rather than history; {@link #covers} tells whether a window
+ * starting at a given instant can be answered from the index.
+ * <p>
+ * Each local change is announced on the {@link CacheInvalidationBus} by reservation id. Other nodes
+ * re-read that reservation from the database and apply its current state, then evict the availability
+ * keys around its old and new window, so bookings made elsewhere reach every node's index. Pub/sub is
+ * best effort: a missed message is corrected by the next {@code repair} reconcile.
+ * <p>
+ * Readers see an immutable {@link OccupancySnapshot} per type; loads and updates are serialised by a
+ * lock (not a monitor, so a virtual thread waiting behind a reload does not pin its carrier). Updates
+ * are keyed by reservation id, so replaying an event is harmless.
+ */
+@Service
+public class OccupancyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyIndex.class);
+
+    /** Applies commits before {@link AvailabilityCache} evicts, so reloads see them. */
+    static final int LISTENER_ORDER = 0;
+
+    static final String CHANNEL = "occupancy";
+    private static final Duration RETAIN = Duration.ofDays(1);
+
+    private final ReservationRepository reservationRepository;
+    private final AvailabilityCache availabilityCache;
+    private final CacheInvalidationBus bus;
+    private final String origin = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final String reconcileMode;
+    private final int maxReservationDays;
+
+    private final Map<CarType, OccupancySnapshot> snapshots = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean ready;
+    private volatile Instant coveredFrom = Instant.MAX;
+
+    public OccupancyIndex(ReservationRepository reservationRepository, AvailabilityCache availabilityCache,
+                          CacheInvalidationBus bus,
+                          @Value("${app.availability.index.enabled:true}") boolean enabled,
+                          @Value("${app.availability.index.reconcile:repair}") String reconcileMode,
+                          @Value("${app.reservations.max-days:365}") int maxReservationDays) {
+        this.reservationRepository = reservationRepository;
+        this.availabilityCache = availabilityCache;
+        this.bus = bus;
+        this.enabled = enabled;
+        this.reconcileMode = reconcileMode;
+        this.maxReservationDays = maxReservationDays;
+        for (CarType t : CarType.values()) snapshots.put(t, OccupancySnapshot.EMPTY);
+        if (enabled) bus.subscribe(this::onRemoteChange);
+    }
+
+    public boolean isReady() { return ready; }
+
+    /** Whether overlap counts for windows starting at or after {@code from} are complete. */
+    public boolean covers(Instant from) {
+        return ready && !from.isBefore(coveredFrom);
+    }
+
+    public long countOverlapping(CarType type, Instant startAt, Instant endAt, Long excludeId) {
+        return snapshot(type).countOverlapping(startAt, endAt, excludeId);
+    }
+
+    public OccupancySnapshot snapshot(CarType type) {
+        return snapshots.get(type);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) return;
+        Instant cutoff = Instant.now().minus(RETAIN);
+        writeLock.lock();
+        try {
+            replaceAll(loadFromDatabase(cutoff), cutoff);
+            ready = true;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Occupancy index loaded: {}", sizes());
+    }
+
+    @Order(LISTENER_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent e) {
+        if (!enabled) return;
+        ReservationWindow before = e.before(), after = e.after();
+        writeLock.lock();
+        try {
+            if (before != null && (after == null || before.carType() != after.carType())) {
+                put(before.carType(), snapshot(before.carType()).without(before.id()));
+            }
+            if (after != null) {
+                put(after.carType(), snapshot(after.carType()).with(after));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        bus.publish(CacheInvalidation.window(origin, CHANNEL, after != null ? after : before));
+    }
+
+    private void onRemoteChange(CacheInvalidation message) {
+        if (!CHANNEL.equals(message.cacheName()) || origin.equals(message.origin()) || message.window() == null) return;
+        Long id = message.window().id();
+        Optional<ReservationWindow> current = reservationRepository.findWindowByIdAndStatus(id, ReservationStatus.CONFIRMED);
+        List<ReservationWindow> changed = new ArrayList<>();
+        writeLock.lock();
+        try {
+            for (CarType t : CarType.values()) {
+                ReservationWindow held = snapshot(t).windows().get(id);
+                if (held == null) continue;
+                changed.add(held);
+                put(t, snapshot(t).without(id));
+            }
+            current.ifPresent(w -> {
+                put(w.carType(), snapshot(w.carType()).with(w));
+                changed.add(w);
+            });
+        } finally {
+            writeLock.unlock();
+        }
+        changed.forEach(availabilityCache::evictOverlapping);
+    }
+
+    @Scheduled(initialDelayString = "${app.availability.index.reconcile-interval:PT5M}",
+               fixedDelayString = "${app.availability.index.reconcile-interval:PT5M}")
+    public void reconcile() {
+        if (!ready || "off".equalsIgnoreCase(reconcileMode)) return;
+        Instant cutoff = Instant.now().minus(RETAIN);
+        writeLock.lock();
+        try {
+            Map<CarType, OccupancySnapshot> actual = loadFromDatabase(cutoff);
+            List<String> drift = new ArrayList<>();
+            for (CarType t : CarType.values()) {
+                Map<Long, ReservationWindow> expected = actual.get(t).windows();
+                Map<Long, ReservationWindow> held = new HashMap<>(snapshot(t).windows());
+                held.values().removeIf(w -> !w.endAt().isAfter(cutoff));
+                if (!expected.equals(held)) {
+                    drift.add(t + " (db=" + expected.size() + ", index=" + held.size() + ")");
+                }
+            }
+            if (drift.isEmpty() || "repair".equalsIgnoreCase(reconcileMode)) {
+                // also drops the windows that ended before the cutoff
+                replaceAll(actual, cutoff);
+            }
+            if (drift.isEmpty()) return;
+            if ("repair".equalsIgnoreCase(reconcileMode)) {
+                log.warn("Occupancy index drifted from database, reloaded: {}", drift);
+            } else {
+                log.warn("Occupancy index drifted from database: {}", drift);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Map<CarType, OccupancySnapshot> loadFromDatabase(Instant cutoff) {
+        return OccupancySnapshot.byCarType(reservationRepository.findWindowsEndingAfter(ReservationStatus.CONFIRMED,
+                cutoff, cutoff.minus(maxReservationDays, ChronoUnit.DAYS)));
+    }
+
+    private void replaceAll(Map<CarType, OccupancySnapshot> loaded, Instant cutoff) {
+        snapshots.putAll(loaded);
+        coveredFrom = cutoff;
+    }
+
+    private void put(CarType type, OccupancySnapshot s) {
+        snapshots.put(type, s);
+    }
+
+    private Map<CarType, Integer> sizes() {
+        Map<CarType, Integer> out = new EnumMap<>(CarType.class);
+        for (CarType t : CarType.values()) out.put(t, snapshot(t).size());
+        return out;
+    }
+}
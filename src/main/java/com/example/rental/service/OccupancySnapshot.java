@@ -0,0 +1,138 @@
+package com.example.rental.service;
+
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationWindow;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of CONFIRMED reservation windows for one car type. Start and end points are kept
+ * as two sorted arrays of epoch micros (the precision the database stores), so the number of
+ * windows overlapping [from, to) is {@code #(start < to) - #(end <= from)}: two binary searches.
+ */
+public final class OccupancySnapshot {
+
+    static final OccupancySnapshot EMPTY = new OccupancySnapshot(new long[0], new long[0], Map.of());
+
+    private final long[] starts;
+    private final long[] ends;
+    private final Map<Long, ReservationWindow> byId;
+
+    private OccupancySnapshot(long[] starts, long[] ends, Map<Long, ReservationWindow> byId) {
+        this.starts = starts;
+        this.ends = ends;
+        this.byId = byId;
+    }
+
+    public static OccupancySnapshot of(Collection<ReservationWindow> windows) {
+        long[] starts = new long[windows.size()];
+        long[] ends = new long[windows.size()];
+        Map<Long, ReservationWindow> byId = new HashMap<>();
+        int i = 0;
+        for (ReservationWindow w : windows) {
+            w = normalize(w);
+            starts[i] = micros(w.startAt());
+            ends[i] = micros(w.endAt());
+            if (w.id() != null) byId.put(w.id(), w);
+            i++;
+        }
+        Arrays.sort(starts);
+        Arrays.sort(ends);
+        return new OccupancySnapshot(starts, ends, byId);
+    }
+
+    /** Groups windows by car type; every type gets a snapshot, empty if it has no windows. */
+    public static Map<CarType, OccupancySnapshot> byCarType(Collection<ReservationWindow> windows) {
+        Map<CarType, List<ReservationWindow>> grouped = new EnumMap<>(CarType.class);
+        for (CarType t : CarType.values()) grouped.put(t, new ArrayList<>());
+        for (ReservationWindow w : windows) grouped.get(w.carType()).add(w);
+        Map<CarType, OccupancySnapshot> out = new EnumMap<>(CarType.class);
+        grouped.forEach((t, list) -> out.put(t, of(list)));
+        return out;
+    }
+
+    public long countOverlapping(Instant from, Instant to, Long excludeId) {
+        long f = micros(from), t = micros(to);
+        long count = lowerBound(starts, t) - upperBound(ends, f);
+        if (excludeId != null) {
+            ReservationWindow excluded = byId.get(excludeId);
+            if (excluded != null && micros(excluded.startAt()) < t && micros(excluded.endAt()) > f) count--;
+        }
+        return Math.max(0, count);
+    }
+
+    public int size() { return starts.length; }
+
+    Map<Long, ReservationWindow> windows() { return byId; }
+
+    /** Returns a copy with {@code w} added, replacing any window already held under the same id. */
+    OccupancySnapshot with(ReservationWindow w) {
+        w = normalize(w);
+        OccupancySnapshot base = without(w.id());
+        Map<Long, ReservationWindow> byId = new HashMap<>(base.byId);
+        byId.put(w.id(), w);
+        return new OccupancySnapshot(insert(base.starts, micros(w.startAt())), insert(base.ends, micros(w.endAt())), byId);
+    }
+
+    /** Returns a copy without the window held under {@code id}, or this snapshot if there is none. */
+    OccupancySnapshot without(Long id) {
+        ReservationWindow old = byId.get(id);
+        if (old == null) return this;
+        Map<Long, ReservationWindow> byId = new HashMap<>(this.byId);
+        byId.remove(id);
+        return new OccupancySnapshot(remove(starts, micros(old.startAt())), remove(ends, micros(old.endAt())), byId);
+    }
+
+    private static ReservationWindow normalize(ReservationWindow w) {
+        return new ReservationWindow(w.id(), w.carType(),
+                w.startAt().truncatedTo(ChronoUnit.MICROS), w.endAt().truncatedTo(ChronoUnit.MICROS));
+    }
+
+    static long micros(Instant t) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, t);
+    }
+
+    private static int lowerBound(long[] a, long key) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int upperBound(long[] a, long key) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] <= key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static long[] insert(long[] a, long v) {
+        int pos = lowerBound(a, v);
+        long[] out = new long[a.length + 1];
+        System.arraycopy(a, 0, out, 0, pos);
+        out[pos] = v;
+        System.arraycopy(a, pos, out, pos + 1, a.length - pos);
+        return out;
+    }
+
+    private static long[] remove(long[] a, long v) {
+        int pos = lowerBound(a, v);
+        if (pos == a.length || a[pos] != v) return a;
+        long[] out = new long[a.length - 1];
+        System.arraycopy(a, 0, out, 0, pos);
+        System.arraycopy(a, pos + 1, out, pos, a.length - pos - 1);
+        return out;
+    }
+}
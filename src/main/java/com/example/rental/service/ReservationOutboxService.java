@@ -0,0 +1,125 @@
+package com.example.rental.service;
+
+import com.example.rental.event.ReservationChangedEvent;
+import com.example.rental.event.ReservationFeedEvent;
+import com.example.rental.event.ReservationFeedSink;
+import com.example.rental.model.ReservationOutboxEntry;
+import com.example.rental.model.ReservationOutboxEntry.ChangeType;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.repository.ReservationOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Transactional outbox for reservation writes. Every {@link ReservationChangedEvent} adds a
+ * {@code reservation_outbox} row inside the writing transaction, so the feed has exactly the
+ * committed changes. The relay drains pending rows in {@code feed_seq} order,
+ * {@code app.outbox.batch-size} at a time: each row becomes a {@link ReservationFeedEvent} on the
+ * application event bus, each batch goes to every {@link ReservationFeedSink} bean, and the rows are
+ * marked published in the same transaction. A failure rolls the batch back and it is delivered again
+ * on the next run.
+ * <p>
+ * Ordering is per reservation only. {@code feed_seq} is assigned by the database at insert, so a
+ * transaction that commits later can hold a lower number than one already relayed. The writes of one
+ * reservation are serialised by its {@code @Version} check, so its rows are numbered, and relayed, in
+ * commit order. Row ids come from a pooled sequence so inserts batch; they follow no order.
+ * <p>
+ * Published rows are deleted after {@code app.outbox.retention}.
+ */
+@Service
+public class ReservationOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationOutboxService.class);
+
+    private final ReservationOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher events;
+    private final List<ReservationFeedSink> sinks;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration retention;
+    private final Counter published;
+
+    public ReservationOutboxService(ReservationOutboxRepository outboxRepository, ApplicationEventPublisher events,
+                                    List<ReservationFeedSink> sinks, PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.outbox.enabled:true}") boolean enabled,
+                                    @Value("${app.outbox.batch-size:500}") int batchSize,
+                                    @Value("${app.outbox.retention:P7D}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.events = events;
+        this.sinks = sinks;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.published = meterRegistry.counter("reservation.outbox.published");
+    }
+
+    @EventListener
+    @Transactional
+    public void onReservationChanged(ReservationChangedEvent e) {
+        if (!enabled) return;
+        ReservationWindow before = e.before(), after = e.after();
+        outboxRepository.save(ReservationOutboxEntry.builder()
+                .reservationId(e.reservationId())
+                .userId(e.userId())
+                .changeType(before == null ? ChangeType.CREATED : after == null ? ChangeType.CANCELLED : ChangeType.UPDATED)
+                .beforeCarType(before == null ? null : before.carType())
+                .beforeStartAt(before == null ? null : before.startAt())
+                .beforeEndAt(before == null ? null : before.endAt())
+                .afterCarType(after == null ? null : after.carType())
+                .afterStartAt(after == null ? null : after.startAt())
+                .afterEndAt(after == null ? null : after.endAt())
+                .createdAt(Instant.now())
+                .build());
+    }
+
+    /** Publishes pending rows until none are left; returns how many were published. */
+    @Scheduled(fixedDelayString = "${app.outbox.relay-interval:PT1S}", initialDelayString = "${app.outbox.relay-interval:PT1S}")
+    public int relay() {
+        if (!enabled) return 0;
+        int total = 0, n;
+        do {
+            n = tx.execute(s -> relayBatch());
+            total += n;
+        } while (n == batchSize);
+        return total;
+    }
+
+    private int relayBatch() {
+        List<ReservationOutboxEntry> pending = outboxRepository.lockPending(Limit.of(batchSize));
+        if (pending.isEmpty()) return 0;
+        List<ReservationFeedEvent> batch = pending.stream()
+                .map(e -> new ReservationFeedEvent(e.getFeedSeq(), e.getReservationId(), e.getUserId(), e.getChangeType(),
+                        e.before(), e.after(), e.getCreatedAt()))
+                .toList();
+        batch.forEach(events::publishEvent);
+        for (ReservationFeedSink sink : sinks) sink.publish(batch);
+        outboxRepository.markPublished(pending.stream().map(ReservationOutboxEntry::getId).toList(), Instant.now());
+        published.increment(batch.size());
+        return batch.size();
+    }
+
+    @Scheduled(cron = "${app.outbox.purge-cron:0 45 * * * *}")
+    @Transactional
+    public void purge() {
+        int deleted = outboxRepository.deletePublishedBefore(Instant.now().minus(retention));
+        if (deleted > 0) log.info("Deleted {} published outbox rows", deleted);
+    }
+}
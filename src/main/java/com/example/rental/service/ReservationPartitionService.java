@@ -0,0 +1,127 @@
+package com.example.rental.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Maintains the monthly partitions of {@code reservations} (Postgres only, see V5 migration).
+ * <ul>
+ *   <li>Creates the partitions for the current month and {@code app.partitioning.months-ahead} months
+ *   after it. Rows that already landed in the default partition for such a month are moved in the same
+ *   transaction, then the new table is attached.</li>
+ *   <li>Partitions older than {@code app.partitioning.retain-months} are taken out of the table:
+ *   {@code detach} keeps them as {@code reservations_archive_YYYYMM}, {@code drop} deletes them.
+ *   A partition is never removed while it could still hold a running reservation
+ *   ({@code app.reservations.max-days}).</li>
+ * </ul>
+ * Runs on startup and on {@code app.partitioning.cron}; disabled unless {@code app.partitioning.enabled}.
+ */
+@Service
+public class ReservationPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationPartitionService.class);
+    private static final String PREFIX = "reservations_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    // stored columns only: the generated period column (db/range) cannot be inserted
+    private static final String COLUMNS = "id, user_id, car_type, start_at, end_at, days, status, version";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retainMonths;
+    private final String archiveMode;
+    private final int maxReservationDays;
+
+    public ReservationPartitionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                       @Value("${app.partitioning.enabled:false}") boolean enabled,
+                                       @Value("${app.partitioning.months-ahead:12}") int monthsAhead,
+                                       @Value("${app.partitioning.retain-months:24}") int retainMonths,
+                                       @Value("${app.partitioning.archive:detach}") String archiveMode,
+                                       @Value("${app.reservations.max-days:365}") int maxReservationDays) {
+        if (!archiveMode.equals("detach") && !archiveMode.equals("drop")) {
+            throw new IllegalArgumentException("app.partitioning.archive must be detach or drop: " + archiveMode);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retainMonths = retainMonths;
+        this.archiveMode = archiveMode;
+        this.maxReservationDays = maxReservationDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.partitioning.cron:0 15 2 * * *}")
+    public void maintain() {
+        if (!enabled) return;
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!exists(PREFIX + month.format(SUFFIX))) create(month);
+        }
+        YearMonth oldestKept = min(current.minusMonths(retainMonths),
+                YearMonth.from(LocalDate.now(ZoneOffset.UTC).minusDays(maxReservationDays)));
+        for (String name : partitions()) {
+            YearMonth month = YearMonth.parse(name.substring(PREFIX.length()), SUFFIX);
+            if (month.isBefore(oldestKept)) archive(name, month);
+        }
+    }
+
+    private void create(YearMonth month) {
+        String name = PREFIX + month.format(SUFFIX);
+        String from = month.atDay(1).toString(), to = month.plusMonths(1).atDay(1).toString();
+        tx.executeWithoutResult(s -> {
+            jdbcTemplate.execute("create table " + name + " (like reservations including defaults including constraints including generated)");
+            int moved = jdbcTemplate.update("with moved as (delete from reservations_default where start_at >= ?::timestamp and start_at < ?::timestamp returning *) "
+                    + "insert into " + name + " (" + COLUMNS + ") select " + COLUMNS + " from moved", from, to);
+            jdbcTemplate.execute("alter table reservations attach partition " + name
+                    + " for values from ('" + from + "') to ('" + to + "')");
+            log.info("Created partition {} ({} rows moved from the default partition)", name, moved);
+        });
+    }
+
+    private void archive(String name, YearMonth month) {
+        tx.executeWithoutResult(s -> {
+            if (archiveMode.equals("drop")) {
+                jdbcTemplate.execute("drop table " + name);
+            } else {
+                jdbcTemplate.execute("alter table reservations detach partition " + name);
+                jdbcTemplate.execute("alter table " + name + " rename to reservations_archive_" + month.format(SUFFIX));
+            }
+        });
+        log.info("Partition {} {}", name, archiveMode.equals("drop") ? "dropped" : "detached and archived");
+    }
+
+    private boolean exists(String table) {
+        return jdbcTemplate.queryForObject("select to_regclass(?) is not null", Boolean.class, table);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("""
+                select c.relname from pg_inherits i
+                join pg_class c on c.oid = i.inhrelid
+                join pg_class p on p.oid = i.inhparent
+                where p.relname = 'reservations' and c.relname ~ '^reservations_p[0-9]{6}$'
+                order by c.relname
+                """, String.class);
+    }
+
+    private static YearMonth min(YearMonth a, YearMonth b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.reservation.ReservationCursor;
+import com.example.rental.dto.reservation.ReservationFilter;
+import com.example.rental.dto.reservation.ReservationPage;
+import com.example.rental.dto.reservation.ReservationResponse;
+import com.example.rental.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads a user's reservations in {@code (startAt, id)} order, a keyset page at a time, straight into
+ * {@link ReservationResponse} without loading entities. Cost per page is independent of how deep
+ * into the history the cursor is.
+ * <p>
+ * Each page is read in its own read-only transaction, so it can be served by a replica; a stream
+ * fetches its later pages after the first transaction has ended.
+ */
+@Service
+public class ReservationQueryService {
+
+    private final ReservationRepository reservationRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public ReservationQueryService(ReservationRepository reservationRepository, PlatformTransactionManager transactionManager,
+                                   @Value("${app.reservations.page.default-size:50}") int defaultPageSize,
+                                   @Value("${app.reservations.page.max-size:500}") int maxPageSize) {
+        this.reservationRepository = reservationRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /** One page after {@code cursor} (null for the first page); {@code limit} null means the default size. */
+    public ReservationPage page(Long userId, ReservationFilter filter, ReservationCursor cursor, Integer limit) {
+        int size = limit == null ? defaultPageSize : limit;
+        if (size < 1 || size > maxPageSize) throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        validate(filter);
+        return fetch(userId, filter, cursor, size);
+    }
+
+    /** Every matching reservation, fetched lazily one max-size page at a time as the stream is consumed. */
+    public Stream<ReservationResponse> stream(Long userId, ReservationFilter filter) {
+        validate(filter);
+        return Stream.iterate(fetch(userId, filter, null, maxPageSize), p -> p != null,
+                        p -> p.next() == null ? null : fetch(userId, filter, p.next(), maxPageSize))
+                .flatMap(p -> p.items().stream());
+    }
+
+    private ReservationPage fetch(Long userId, ReservationFilter filter, ReservationCursor cursor, int size) {
+        List<ReservationResponse> rows = readOnlyTx.execute(s -> reservationRepository.findPageByUser(userId, filter.status(),
+                filter.from(), filter.to(),
+                cursor == null ? null : cursor.startAt(), cursor == null ? null : cursor.id(),
+                Limit.of(size + 1)));
+        if (rows.size() <= size) return new ReservationPage(rows, null);
+        List<ReservationResponse> items = rows.subList(0, size);
+        return new ReservationPage(items, ReservationCursor.after(items.get(size - 1)));
+    }
+
+    private static void validate(ReservationFilter filter) {
+        if (filter.from() != null && filter.to() != null && !filter.from().isBefore(filter.to())) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+    }
+}
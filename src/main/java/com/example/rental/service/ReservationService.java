@@ -1,35 +1,110 @@
 package com.example.rental.service;
 
+import com.example.rental.config.retry.RetryOnTransientFailure;
+import com.example.rental.dto.reservation.BatchMode;
 import com.example.rental.dto.reservation.ReservationCreateRequest;
 import com.example.rental.dto.reservation.ReservationUpdateRequest;
+import com.example.rental.event.ReservationChangedEvent;
 import com.example.rental.exception.ConflictException;
 import com.example.rental.exception.NotFoundException;
 import com.example.rental.model.CarType;
 import com.example.rental.model.Reservation;
 import com.example.rental.model.ReservationStatus;
+import com.example.rental.model.ReservationWindow;
 import com.example.rental.repository.ReservationRepository;
 import com.example.rental.util.TimeUtil;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ReservationService {
 
+    /** Longest reservation the reservations_max_duration check constraint lets the database store. */
+    static final int STORED_MAX_DAYS = 365;
+
     private final ReservationRepository reservationRepository;
     private final CapacityService capacityService;
+    private final BookingLockService bookingLocks;
+    private final OccupancyIndex occupancyIndex;
+    private final DailyInventoryService dailyInventory;
+    private final AvailabilityCache availabilityCache;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate primaryTx;
+    private final String availabilitySource;
+    private final int maxReservationDays;
+    private final boolean rangeOverlapQuery;
+    private final Timer overlapQueryTimer;
 
-    public ReservationService(ReservationRepository reservationRepository, CapacityService capacityService) {
+    public ReservationService(ReservationRepository reservationRepository, CapacityService capacityService,
+                              BookingLockService bookingLocks, OccupancyIndex occupancyIndex,
+                              DailyInventoryService dailyInventory, AvailabilityCache availabilityCache,
+                              ApplicationEventPublisher events, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.availability.source:index}") String availabilitySource,
+                              @Value("${app.reservations.max-days:365}") int maxReservationDays,
+                              @Value("${app.availability.overlap-query:btree}") String overlapQuery) {
+        if (!List.of("index", "database", "inventory").contains(availabilitySource)) {
+            throw new IllegalArgumentException("app.availability.source must be index, database or inventory: " + availabilitySource);
+        }
+        if (!overlapQuery.equals("btree") && !overlapQuery.equals("range")) {
+            throw new IllegalArgumentException("app.availability.overlap-query must be btree or range: " + overlapQuery);
+        }
+        if (maxReservationDays > STORED_MAX_DAYS) {
+            throw new IllegalArgumentException("app.reservations.max-days must be <= " + STORED_MAX_DAYS
+                    + " (reservations_max_duration constraint): " + maxReservationDays);
+        }
+        if (availabilitySource.equals("inventory") && !dailyInventory.isEnabled()) {
+            throw new IllegalArgumentException("app.availability.source=inventory needs app.availability.inventory.enabled");
+        }
         this.reservationRepository = reservationRepository;
         this.capacityService = capacityService;
+        this.bookingLocks = bookingLocks;
+        this.occupancyIndex = occupancyIndex;
+        this.dailyInventory = dailyInventory;
+        this.availabilityCache = availabilityCache;
+        this.events = events;
+        this.primaryTx = new TransactionTemplate(transactionManager);
+        this.availabilitySource = availabilitySource;
+        this.maxReservationDays = maxReservationDays;
+        this.rangeOverlapQuery = overlapQuery.equals("range");
+        this.overlapQueryTimer = Timer.builder("reservation.overlap.count").tag("query", overlapQuery).register(meterRegistry);
+    }
+
+    /**
+     * Overlap queries skip rows starting more than {@code app.reservations.max-days} before a window,
+     * so a longer stored reservation would be invisible to them and could be overbooked. The database
+     * caps stored reservations at {@link #STORED_MAX_DAYS}; only a lower setting needs the scan, and
+     * startup is refused if it finds a longer one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyStoredDurations() {
+        if (maxReservationDays >= STORED_MAX_DAYS) return;
+        Integer longest = reservationRepository.findMaxDays();
+        if (longest != null && longest > maxReservationDays) {
+            throw new IllegalStateException("reservations holds a " + longest + "-day reservation, longer than app.reservations.max-days="
+                    + maxReservationDays + "; raise the setting to at least " + longest);
+        }
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    @CacheEvict(value = "availability", allEntries = true)
+    @Timed("reservation.create")
+    @RetryOnTransientFailure
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Reservation create(Long userId, ReservationCreateRequest req) {
         validateRequest(req.carType(), req.startAt(), req.days());
         Instant endAt = TimeUtil.endFromStartAndDays(req.startAt(), req.days());
@@ -42,11 +117,82 @@ public class ReservationService {
                 .days(req.days())
                 .status(ReservationStatus.CONFIRMED)
                 .build();
-        return reservationRepository.save(r);
+        Reservation saved = reservationRepository.save(r);
+        events.publishEvent(new ReservationChangedEvent(saved.getId(), userId, null, ReservationWindow.of(saved)));
+        return saved;
+    }
+
+    /** Result of one batch item: the booked reservation, or why it was rejected. */
+    public record BatchOutcome(int index, Reservation reservation, String error) {}
+
+    /**
+     * Books several reservations in one transaction. All items are locked together, existing occupancy
+     * for the whole span is read with a single range query, and items are checked in request order
+     * against it and against the items accepted before them. Accepted rows are inserted in JDBC batches.
+     */
+    @Timed("reservation.create.batch")
+    @RetryOnTransientFailure
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<BatchOutcome> createBatch(Long userId, BatchMode mode, List<ReservationCreateRequest> items) {
+        String[] errors = new String[items.size()];
+        List<ReservationWindow> windows = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            ReservationCreateRequest req = items.get(i);
+            try {
+                validateRequest(req.carType(), req.startAt(), req.days());
+            } catch (IllegalArgumentException e) {
+                if (mode == BatchMode.ALL_OR_NOTHING) throw new IllegalArgumentException("items[" + i + "]: " + e.getMessage());
+                errors[i] = e.getMessage();
+                continue;
+            }
+            // negative placeholder ids keep batch windows distinct inside the snapshot
+            windows.add(new ReservationWindow(-(i + 1L), req.carType(), req.startAt(),
+                    TimeUtil.endFromStartAndDays(req.startAt(), req.days())));
+        }
+
+        List<Reservation> accepted = new ArrayList<>();
+        Reservation[] booked = new Reservation[items.size()];
+        if (!windows.isEmpty()) {
+            bookingLocks.lockAll(windows);
+            Instant from = windows.stream().map(ReservationWindow::startAt).min(Instant::compareTo).orElseThrow();
+            Instant to = windows.stream().map(ReservationWindow::endAt).max(Instant::compareTo).orElseThrow();
+            Map<CarType, OccupancySnapshot> occupancy = new EnumMap<>(OccupancySnapshot.byCarType(
+                    reservationRepository.findWindowsOverlapping(ReservationStatus.CONFIRMED, from, to, earliestStart(from))));
+            Map<CarType, Long> capacity = new EnumMap<>(CarType.class);
+            for (ReservationWindow w : windows) {
+                int i = (int) (-w.id() - 1);
+                OccupancySnapshot snapshot = occupancy.get(w.carType());
+                long cap = capacity.computeIfAbsent(w.carType(), capacityService::capacityOf);
+                if (snapshot.countOverlapping(w.startAt(), w.endAt(), null) >= cap) {
+                    if (mode == BatchMode.ALL_OR_NOTHING) throw new ConflictException("items[" + i + "]: No availability for requested period");
+                    errors[i] = "No availability for requested period";
+                    continue;
+                }
+                occupancy.put(w.carType(), snapshot.with(w));
+                booked[i] = Reservation.builder()
+                        .userId(userId)
+                        .carType(w.carType())
+                        .startAt(w.startAt())
+                        .endAt(w.endAt())
+                        .days(items.get(i).days())
+                        .status(ReservationStatus.CONFIRMED)
+                        .build();
+                accepted.add(booked[i]);
+            }
+            reservationRepository.saveAll(accepted);
+            for (Reservation r : accepted) {
+                events.publishEvent(new ReservationChangedEvent(r.getId(), userId, null, ReservationWindow.of(r)));
+            }
+        }
+
+        List<BatchOutcome> outcomes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) outcomes.add(new BatchOutcome(i, booked[i], errors[i]));
+        return outcomes;
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    @CacheEvict(value = "availability", allEntries = true)
+    @Timed("reservation.update")
+    @RetryOnTransientFailure
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Reservation update(Long userId, Long id, ReservationUpdateRequest req) {
         Reservation r = reservationRepository.findById(id).orElseThrow(() -> new NotFoundException("Reservation not found"));
         if (!r.getUserId().equals(userId)) throw new NotFoundException("Reservation not found");
@@ -54,37 +200,49 @@ public class ReservationService {
         validateRequest(req.carType(), req.startAt(), req.days());
         Instant endAt = TimeUtil.endFromStartAndDays(req.startAt(), req.days());
         ensureAvailable(req.carType(), req.startAt(), endAt, id);
+        ReservationWindow before = confirmedWindow(r);
         r.setCarType(req.carType());
         r.setStartAt(req.startAt());
         r.setEndAt(endAt);
         r.setDays(req.days());
-        return reservationRepository.save(r);
+        Reservation saved = reservationRepository.save(r);
+        events.publishEvent(new ReservationChangedEvent(id, userId, before, confirmedWindow(saved)));
+        return saved;
     }
 
+    @Timed("reservation.cancel")
+    @RetryOnTransientFailure
     @Transactional
-    @CacheEvict(value = "availability", allEntries = true)
     public void cancel(Long userId, Long id) {
         Reservation r = reservationRepository.findById(id).orElseThrow(() -> new NotFoundException("Reservation not found"));
         if (!r.getUserId().equals(userId)) throw new NotFoundException("Reservation not found");
         if (r.getStatus() == ReservationStatus.CANCELLED) return;
+        ReservationWindow before = confirmedWindow(r);
         r.setStatus(ReservationStatus.CANCELLED);
         reservationRepository.save(r);
+        events.publishEvent(new ReservationChangedEvent(id, userId, before, null));
     }
 
-    public List<Reservation> listByUser(Long userId) { return reservationRepository.findByUserId(userId); }
-
-    @Cacheable(
-            value = "availability",
-            key =
-                    "T(java.lang.String).format(" +
-                            "'availability:%s:%s:%s', " +
-                            "#type, " +
-                            "(#startAt == null ? 'null' : #startAt.truncatedTo(T(java.time.temporal.ChronoUnit).HOURS)), " +
-                            "#days)"
-    )
+    // not @Transactional: cache hits and callers waiting on a single-flight load hold no connection.
+    // The loader's transaction is not read-only, so it reads the primary: its value fills the shared
+    // cache, and a replica lagging behind a commit would cache the count from before that commit's eviction
+    @Timed("reservation.available")
     public long available(CarType type, Instant startAt, int days) {
-        Instant endAt = TimeUtil.endFromStartAndDays(startAt, days);
-        long overlapping = reservationRepository.countOverlappingByTypeExcluding(type, startAt, endAt, ReservationStatus.CONFIRMED, null);
+        return availabilityCache.get(type, startAt, days,
+                (from, to) -> primaryTx.execute(s -> computeAvailable(type, from, to)));
+    }
+
+    // index: in-memory overlap count once loaded; inventory: busiest day in daily_inventory (day-granular,
+    // may understate availability); database, or windows the index does not cover: COUNT of overlapping rows.
+    private long computeAvailable(CarType type, Instant startAt, Instant endAt) {
+        long overlapping;
+        if (availabilitySource.equals("inventory")) {
+            overlapping = dailyInventory.maxBooked(type, startAt, endAt);
+        } else if (availabilitySource.equals("index") && occupancyIndex.covers(startAt)) {
+            overlapping = occupancyIndex.countOverlapping(type, startAt, endAt, null);
+        } else {
+            overlapping = countConfirmedOverlapping(type, startAt, endAt, null);
+        }
         long capacity = capacityService.capacityOf(type);
         return Math.max(0, capacity - overlapping);
     }
@@ -94,10 +252,31 @@ public class ReservationService {
         if (startAt == null) throw new IllegalArgumentException("startAt is required");
         if (startAt.isBefore(Instant.now())) throw new IllegalArgumentException("startAt must be in the future");
         if (days < 1) throw new IllegalArgumentException("days must be >= 1");
+        if (days > maxReservationDays) throw new IllegalArgumentException("days must be <= " + maxReservationDays);
+    }
+
+    private Instant earliestStart(Instant startAt) {
+        return startAt.minus(maxReservationDays, ChronoUnit.DAYS);
+    }
+
+    // btree: start_at/end_at comparisons over idx_res_type_window_status; range: period && window over
+    // the GiST index from the db/range migration (app.availability.overlap-query)
+    private long countConfirmedOverlapping(CarType type, Instant startAt, Instant endAt, Long excludeId) {
+        Instant earliestStart = earliestStart(startAt);
+        return overlapQueryTimer.record(() -> rangeOverlapQuery
+                ? reservationRepository.countConfirmedOverlappingByPeriod(type.name(), startAt, endAt, earliestStart, excludeId)
+                : reservationRepository.countOverlappingByTypeExcluding(type, startAt, endAt, earliestStart, ReservationStatus.CONFIRMED, excludeId));
+    }
+
+    private static ReservationWindow confirmedWindow(Reservation r) {
+        return r.getStatus() == ReservationStatus.CONFIRMED ? ReservationWindow.of(r) : null;
     }
 
+    // Write path keeps counting in the database, under the booking lock: the index only sees this
+    // node's commits.
     private void ensureAvailable(CarType type, Instant startAt, Instant endAt, Long excludeReservationId) {
-        long overlapping = reservationRepository.countOverlappingByTypeExcluding(type, startAt, endAt, ReservationStatus.CONFIRMED, excludeReservationId);
+        bookingLocks.lock(type, startAt, endAt);
+        long overlapping = countConfirmedOverlapping(type, startAt, endAt, excludeReservationId);
         long capacity = capacityService.capacityOf(type);
         if (overlapping >= capacity) throw new ConflictException("No availability for requested period");
     }
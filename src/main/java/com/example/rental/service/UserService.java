@@ -2,6 +2,8 @@ package com.example.rental.service;
 
 import com.example.rental.model.User;
 import com.example.rental.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,18 +20,28 @@ public class UserService {
         this.passwordEncoder = passwordEncoder;
     }
 
-    @Transactional
+    /**
+     * One INSERT: the unique index on {@code users.email} decides duplicates, including concurrent
+     * signups for the same address, so there is no existence check beforehand. The returned user
+     * carries the generated id; nothing is read back.
+     */
     public User signup(String email, String password) {
-        if (userRepository.existsByEmail(email)) {
-            throw new IllegalArgumentException("Email already used");
-        }
         User user = User.builder()
                 .email(email)
                 .passwordHash(passwordEncoder.encode(password))
                 .build();
-        return userRepository.save(user);
+        try {
+            return userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException cve
+                    && cve.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE) {
+                throw new IllegalArgumentException("Email already used");
+            }
+            throw e;
+        }
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
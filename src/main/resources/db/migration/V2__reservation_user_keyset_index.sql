@@ -0,0 +1,3 @@
+-- keyset pagination of a user's reservations: where user_id = ? and (start_at, id) > (?, ?) order by start_at, id
+drop index if exists idx_res_user;
+create index idx_res_user_start on reservations(user_id, start_at, id);
@@ -0,0 +1,7 @@
+-- Reservation ids come from a pooled sequence (Hibernate allocationSize = 50) so inserts can be batched.
+-- Hibernate hands out (n - 49 .. n) for each nextval n, so start 50 above the current max id.
+create sequence reservations_seq increment by 50;
+select setval('reservations_seq', coalesce((select max(id) from reservations), 0) + 50, false);
+alter table reservations alter column id set default nextval('reservations_seq');
+alter sequence reservations_seq owned by reservations.id;
+drop sequence if exists reservations_id_seq;
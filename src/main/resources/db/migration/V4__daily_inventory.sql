@@ -0,0 +1,14 @@
+-- (car type, UTC day) -> number of CONFIRMED reservations overlapping that day, maintained by the application
+create table daily_inventory (
+  car_type varchar(16) not null,
+  inventory_date date not null,
+  booked int not null,
+  primary key (car_type, inventory_date)
+);
+
+insert into daily_inventory (car_type, inventory_date, booked)
+select r.car_type, d::date, count(*)
+from reservations r
+cross join lateral generate_series(date_trunc('day', r.start_at), r.end_at - interval '1 microsecond', interval '1 day') d
+where r.status = 'CONFIRMED'
+group by r.car_type, d::date;
@@ -0,0 +1,43 @@
+-- Range-partition reservations by start_at, one partition per month (reservations_pYYYYMM), plus a
+-- default partition that catches rows outside the maintained range. Overlap queries bound start_at
+-- from both sides (see app.reservations.max-days), so they only touch the months a window can reach.
+-- Future partitions are created, and old ones detached, by ReservationPartitionService.
+-- A partitioned table's primary key must include the partition key; ids stay unique via reservations_seq.
+alter table reservations rename to reservations_unpartitioned;
+alter index idx_res_type_window_status rename to idx_res_unpartitioned_type_window_status;
+alter index idx_res_user_start rename to idx_res_unpartitioned_user_start;
+
+create table reservations (
+  id bigint not null default nextval('reservations_seq'),
+  user_id bigint not null,
+  car_type varchar(16) not null,
+  start_at timestamp not null,
+  end_at timestamp not null,
+  days int not null,
+  status varchar(16) not null,
+  version bigint,
+  primary key (id, start_at)
+) partition by range (start_at);
+
+create index idx_res_type_window_status on reservations(car_type, start_at, end_at, status);
+create index idx_res_user_start on reservations(user_id, start_at, id);
+
+create table reservations_default partition of reservations default;
+
+do $$
+declare
+  m date := date_trunc('month', coalesce((select min(start_at) from reservations_unpartitioned), now()));
+  last date := date_trunc('month', now() + interval '12 months');
+begin
+  while m <= last loop
+    execute format('create table %I partition of reservations for values from (%L) to (%L)',
+                   'reservations_p' || to_char(m, 'YYYYMM'), m, m + interval '1 month');
+    m := m + interval '1 month';
+  end loop;
+end $$;
+
+insert into reservations(id, user_id, car_type, start_at, end_at, days, status, version)
+select id, user_id, car_type, start_at, end_at, days, status, version from reservations_unpartitioned;
+
+alter sequence reservations_seq owned by reservations.id;
+drop table reservations_unpartitioned;
@@ -0,0 +1,21 @@
+-- Change feed of reservation writes, inserted in the writing transaction and drained by
+-- ReservationOutboxService.relay. Ids are assigned at insert, not at commit, so across reservations
+-- id order is not commit order. A reservation's own changes are still increasing: a write only
+-- commits after the previous one (@Version check), and a retry takes a new, higher id.
+create table reservation_outbox (
+  id bigserial primary key,
+  reservation_id bigint not null,
+  user_id bigint not null,
+  change_type varchar(16) not null,
+  before_car_type varchar(16),
+  before_start_at timestamp,
+  before_end_at timestamp,
+  after_car_type varchar(16),
+  after_start_at timestamp,
+  after_end_at timestamp,
+  created_at timestamp not null,
+  published_at timestamp
+);
+
+create index idx_outbox_pending on reservation_outbox(id) where published_at is null;
+create index idx_outbox_published_at on reservation_outbox(published_at);
@@ -0,0 +1,13 @@
+-- Idempotency-Key claims shared by every node, so a retry that lands on another node still finds the
+-- first attempt. response is null while the first attempt runs, then holds its JSON result.
+-- Rows older than app.idempotency.ttl are deleted by IdempotencyService.purge.
+create table idempotency_keys (
+  user_id bigint not null,
+  idem_key varchar(255) not null,
+  fingerprint varchar(64) not null,
+  response varchar(8000),
+  created_at timestamp not null,
+  primary key (user_id, idem_key)
+);
+
+create index idx_idempotency_created_at on idempotency_keys(created_at);
@@ -0,0 +1,16 @@
+-- Outbox ids come from a pooled sequence (Hibernate allocationSize = 50), as reservations_seq does (V3),
+-- so the outbox rows of a batch booking are inserted in JDBC batches instead of one round trip each.
+-- Pooled ids are handed out per node ahead of use, so they no longer follow insert order. The old
+-- bigserial column becomes feed_seq: still numbered by the database at insert, it is the relay order
+-- and the feed's sequence, so a reservation's changes keep increasing across nodes.
+alter table reservation_outbox rename column id to feed_seq;
+alter table reservation_outbox drop constraint reservation_outbox_pkey;
+alter table reservation_outbox add column id bigint;
+update reservation_outbox set id = feed_seq;
+alter table reservation_outbox alter column id set not null;
+alter table reservation_outbox add primary key (id);
+
+create sequence reservation_outbox_seq increment by 50;
+select setval('reservation_outbox_seq', coalesce((select max(id) from reservation_outbox), 0) + 50, false);
+alter table reservation_outbox alter column id set default nextval('reservation_outbox_seq');
+alter sequence reservation_outbox_seq owned by reservation_outbox.id;
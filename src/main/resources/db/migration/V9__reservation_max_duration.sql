@@ -0,0 +1,5 @@
+-- Overlap queries only look back app.reservations.max-days from a window, which must not exceed
+-- this limit (ReservationService.STORED_MAX_DAYS). Enforcing it here, on every partition, replaces a
+-- startup scan of the whole table. Adding it checks the existing rows once.
+alter table reservations add constraint reservations_max_duration
+  check (end_at - start_at <= interval '365 days');
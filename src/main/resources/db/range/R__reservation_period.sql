@@ -0,0 +1,16 @@
+-- Optional range-indexed overlap queries (Postgres): enabled by adding classpath:db/range to
+-- spring.flyway.locations, see the range-index profile. Repeatable and idempotent, so it can be
+-- switched on for an existing database at any schema version.
+--
+-- period is the reservation window [start_at, end_at) as a stored generated tsrange (the columns are
+-- timestamp without time zone). The GiST index over (car_type, period), partial on CONFIRMED, answers
+-- "period && $window" from both ends of the interval, where the btree on (car_type, start_at, ...)
+-- can only bound start_at. An exclusion constraint does not fit: a car type has several cars, so
+-- overlapping bookings are legal up to capacity.
+create extension if not exists btree_gist;
+
+alter table reservations
+  add column if not exists period tsrange generated always as (tsrange(start_at, end_at, '[)')) stored;
+
+create index if not exists idx_res_confirmed_type_period on reservations
+  using gist (car_type, period) where status = 'CONFIRMED';
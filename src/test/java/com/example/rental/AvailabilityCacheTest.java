@@ -0,0 +1,160 @@
+package com.example.rental;
+
+import com.example.rental.config.cache.LocalCacheInvalidationBus;
+import com.example.rental.event.ReservationChangedEvent;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.service.AvailabilityCache;
+import com.example.rental.service.AvailabilityKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongBiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvailabilityCacheTest {
+
+    private static final Instant T0 = Instant.parse("2030-01-01T10:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private AvailabilityCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new AvailabilityCache(new ConcurrentMapCacheManager("availability"), new LocalCacheInvalidationBus(), meterRegistry, Duration.ofHours(1));
+    }
+
+    private long get(CarType type, int startDay, int days) {
+        return cache.get(type, T0.plus(startDay, ChronoUnit.DAYS), days, (from, to) -> loads.incrementAndGet());
+    }
+
+    private static ReservationWindow window(CarType type, int startDay, int days) {
+        Instant start = T0.plus(startDay, ChronoUnit.DAYS);
+        return new ReservationWindow(1L, type, start, start.plus(days, ChronoUnit.DAYS));
+    }
+
+    @Test
+    void write_evicts_only_overlapping_keys_of_its_car_type() {
+        get(CarType.SEDAN, 0, 2);
+        get(CarType.SEDAN, 5, 1);
+        get(CarType.SUV, 0, 2);
+        assertEquals(3, loads.get());
+
+        cache.onReservationChanged(new ReservationChangedEvent(1L, 1L, null, window(CarType.SEDAN, 1, 1)));
+
+        get(CarType.SEDAN, 0, 2);   // reloaded
+        get(CarType.SEDAN, 5, 1);   // still cached
+        get(CarType.SUV, 0, 2);     // still cached
+        assertEquals(4, loads.get());
+        assertEquals(1.0, meterRegistry.get("availability.cache.evictions").counter().count());
+        assertEquals(2.0, meterRegistry.get("availability.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void update_evicts_keys_of_old_and_new_window() {
+        get(CarType.VAN, 0, 1);
+        get(CarType.VAN, 10, 1);
+        cache.onReservationChanged(new ReservationChangedEvent(1L, 1L, window(CarType.VAN, 0, 1), window(CarType.VAN, 10, 1)));
+        get(CarType.VAN, 0, 1);
+        get(CarType.VAN, 10, 1);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void queries_load_their_exact_window_and_share_keys_only_for_equal_starts() {
+        List<Instant[]> windows = new ArrayList<>();
+        ToLongBiFunction<Instant, Instant> loader = (from, to) -> {
+            windows.add(new Instant[]{from, to});
+            return 1;
+        };
+        cache.get(CarType.SEDAN, T0, 2, loader);
+        cache.get(CarType.SEDAN, T0.plusSeconds(60), 2, loader);
+        cache.get(CarType.SEDAN, T0.plusSeconds(60), 2, loader);
+        cache.get(CarType.SEDAN, T0, 2, loader);
+
+        assertEquals(2, windows.size());
+        assertArrayEquals(new Instant[]{T0, T0.plus(2, ChronoUnit.DAYS)}, windows.get(0));
+        assertArrayEquals(new Instant[]{T0.plusSeconds(60), T0.plus(2, ChronoUnit.DAYS).plusSeconds(60)}, windows.get(1));
+    }
+
+    @Test
+    void booking_ending_inside_the_slot_does_not_hide_a_later_start() {
+        ReservationWindow booked = new ReservationWindow(1L, CarType.VAN, T0.minus(1, ChronoUnit.DAYS), T0.plusSeconds(1200));
+        ToLongBiFunction<Instant, Instant> oneVan = (from, to) -> booked.overlaps(from, to) ? 0 : 1;
+
+        assertEquals(0, cache.get(CarType.VAN, T0, 1, oneVan));
+        assertEquals(1, cache.get(CarType.VAN, T0.plusSeconds(1800), 1, oneVan), "free once the booking ended");
+    }
+
+    @Test
+    void concurrent_misses_for_one_key_run_one_load() throws Exception {
+        int callers = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        ToLongBiFunction<Instant, Instant> slow = (from, to) -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 42;
+        };
+        try (ExecutorService pool = Executors.newFixedThreadPool(callers)) {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) results.add(pool.submit(() -> cache.get(CarType.SUV, T0, 1, slow)));
+            var coalesced = meterRegistry.get("availability.cache.coalesced").functionCounter();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coalesced.count() < callers - 1 && System.nanoTime() < deadline) Thread.sleep(5);
+            release.countDown();
+            for (Future<Long> r : results) assertEquals(42L, r.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(callers - 1, meterRegistry.get("availability.cache.coalesced").functionCounter().count());
+    }
+
+    @Test
+    void write_committing_during_a_load_keeps_the_stale_value_out() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        ToLongBiFunction<Instant, Instant> slow = (from, to) -> {
+            long free = 3 - booked.get();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return free;
+        };
+        try (ExecutorService pool = Executors.newSingleThreadExecutor()) {
+            Future<Long> stale = pool.submit(() -> cache.get(CarType.VAN, T0, 1, slow));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            booked.incrementAndGet();
+            cache.onReservationChanged(new ReservationChangedEvent(1L, 1L, null, window(CarType.VAN, 0, 1)));
+            release.countDown();
+            assertEquals(3L, stale.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2L, cache.get(CarType.VAN, T0, 1, (from, to) -> 3 - booked.get()), "reloaded, not the stale 3");
+
+        long generation = cache.generation(CarType.VAN);
+        cache.onReservationChanged(new ReservationChangedEvent(2L, 1L, null, window(CarType.VAN, 5, 1)));
+        assertFalse(cache.put(new AvailabilityKey(CarType.VAN, T0, 1), 3, generation));
+    }
+}
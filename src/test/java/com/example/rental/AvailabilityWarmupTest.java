@@ -0,0 +1,119 @@
+package com.example.rental;
+
+import com.example.rental.dto.reservation.ReservationCreateRequest;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.repository.ReservationRepository;
+import com.example.rental.service.AvailabilityCache;
+import com.example.rental.service.AvailabilityKey;
+import com.example.rental.service.AvailabilityWarmupService;
+import com.example.rental.service.CapacityService;
+import com.example.rental.service.ReservationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+/** Warm-up fills every key of the horizon from one scan, and a refresh rewrites only what changed. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:warmup;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.cache.type=simple",
+        "app.availability.warmup.enabled=true",
+        "app.availability.warmup.horizon-days=1",
+        "app.availability.warmup.durations=1,2",
+        "app.availability.warmup.refresh-interval=PT1H",
+        "app.cache.remote-ttl=PT2H"
+})
+@Sql(
+        statements = "INSERT INTO capacities (car_type, quantity) VALUES ('SUV', 3)",
+        executionPhase = ExecutionPhase.BEFORE_TEST_CLASS
+)
+public class AvailabilityWarmupTest {
+
+    @Autowired AvailabilityWarmupService warmup;
+    @Autowired ReservationService reservationService;
+    @Autowired CacheManager cacheManager;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired CapacityService capacityService;
+    @Autowired AvailabilityCache availabilityCache;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void forgetCapacities() {
+        // the startup pass ran before the capacities were seeded
+        cacheManager.getCache("capacity").clear();
+    }
+
+    @Test
+    void warms_horizon_and_refreshes_only_changed_keys() {
+        assertEquals(1, meterRegistry.get("availability.warmup").tag("phase", "startup").timer().count());
+
+        Instant now = Instant.now();
+        Instant start = now.truncatedTo(ChronoUnit.HOURS).plus(3, ChronoUnit.HOURS);
+        reservationService.create(1L, new ReservationCreateRequest(CarType.SUV, start, 1));
+
+        int keys = CarType.values().length * 24 * 2;
+        assertEquals(24 * 2, warmup.warm(now), "only SUV values changed since the startup pass");
+        Cache cache = cacheManager.getCache("availability");
+        assertEquals(2L, cache.get(new AvailabilityKey(CarType.SUV, start, 1), Long.class));
+        assertEquals(0L, cache.get(new AvailabilityKey(CarType.SEDAN, start, 2), Long.class));
+
+        double hits = meterRegistry.get("availability.cache.requests").tag("result", "hit").counter().count();
+        assertEquals(2, reservationService.available(CarType.SUV, start, 1));
+        assertEquals(hits + 1, meterRegistry.get("availability.cache.requests").tag("result", "hit").counter().count());
+
+        assertEquals(0, warmup.warm(now), "nothing changed");
+
+        // a booking evicted the key and was cancelled again: same value, but no longer cached
+        availabilityCache.evictOverlapping(new ReservationWindow(98L, CarType.SUV, start, start.plusSeconds(60)));
+        assertNull(cache.get(new AvailabilityKey(CarType.SUV, start, 1)));
+        assertTrue(warmup.warm(now) > 0);
+        assertEquals(2L, cache.get(new AvailabilityKey(CarType.SUV, start, 1), Long.class));
+
+        reservationService.create(2L, new ReservationCreateRequest(CarType.SUV, start.plus(2, ChronoUnit.HOURS), 1));
+        int rewritten = warmup.warm(now);
+        assertTrue(rewritten > 0 && rewritten < keys, "rewrote " + rewritten);
+        assertEquals(1L, cache.get(new AvailabilityKey(CarType.SUV, start.plus(2, ChronoUnit.HOURS), 1), Long.class));
+    }
+
+    @Test
+    void values_scanned_before_a_committed_write_are_dropped() {
+        Instant now = Instant.now();
+        Instant start = now.truncatedTo(ChronoUnit.HOURS).plus(5, ChronoUnit.HOURS);
+        AvailabilityKey key = new AvailabilityKey(CarType.SUV, start, 1);
+        ReservationRepository repository = Mockito.mock(ReservationRepository.class);
+        Mockito.when(repository.findWindowsOverlapping(any(), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    // a booking commits and evicts while the scan still sees the old occupancy
+                    availabilityCache.evictOverlapping(new ReservationWindow(99L, CarType.SUV, start, start.plus(1, ChronoUnit.DAYS)));
+                    return List.of();
+                })
+                .thenReturn(List.of());
+        AvailabilityWarmupService racing = new AvailabilityWarmupService(repository, capacityService, availabilityCache,
+                transactionManager, new SimpleMeterRegistry(), true, 1, new int[]{1, 2},
+                Duration.ofHours(1), Duration.ofHours(2), 365);
+
+        int perType = 24 * 2;
+        assertEquals((CarType.values().length - 1) * perType, racing.warm(now), "SUV values were dropped");
+        assertNull(cacheManager.getCache("availability").get(key));
+
+        assertEquals(perType, racing.warm(now), "the next pass writes them");
+        assertEquals(3L, cacheManager.getCache("availability").get(key, Long.class));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.rental;
+
+import com.example.rental.config.cache.CompactCacheValueSerializer;
+import com.example.rental.model.CarType;
+import com.example.rental.service.AvailabilityKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactCacheValueSerializerTest {
+
+    private final CompactCacheValueSerializer codec = new CompactCacheValueSerializer();
+
+    @Test
+    void round_trips_supported_types_and_falls_back_for_others() {
+        for (Object v : List.of(0L, 3L, -1L, Long.MAX_VALUE, Long.MIN_VALUE, 42, -7, "sedan", NullValue.INSTANCE,
+                Duration.ofMinutes(5))) {
+            assertEquals(v, codec.deserialize(codec.serialize(v)), String.valueOf(v));
+        }
+        assertEquals(2, codec.serialize(5L).length);
+    }
+
+    @Test
+    void availability_keys_are_short_and_distinct() {
+        Instant t = Instant.parse("2030-01-01T10:00:00Z");
+        assertEquals("SUV." + Long.toString(t.toEpochMilli(), 36) + ".3", new AvailabilityKey(CarType.SUV, t, 3).cacheKey());
+        assertEquals("SUV." + Long.toString(t.toEpochMilli() + 60_000, 36) + ".3",
+                new AvailabilityKey(CarType.SUV, t.plusSeconds(60), 3).cacheKey());
+        assertEquals("SUV." + Long.toString(t.toEpochMilli(), 36) + "_500.3",
+                new AvailabilityKey(CarType.SUV, t.plusNanos(500), 3).cacheKey());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.rental;
+
+import com.example.rental.dto.reservation.ReservationCreateRequest;
+import com.example.rental.exception.ConflictException;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationStatus;
+import com.example.rental.repository.ReservationRepository;
+import com.example.rental.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires many simultaneous bookings for the same window at READ COMMITTED and checks that the booking
+ * lock never lets more reservations through than there are cars. Runs on its own H2 database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrency;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;LOCK_TIMEOUT=30000",
+        "app.booking.lock=row"
+})
+@Sql(
+        statements = {
+                "INSERT INTO capacities (car_type, quantity) VALUES ('SEDAN', 3)",
+                "INSERT INTO capacities (car_type, quantity) VALUES ('SUV', 2)",
+                "INSERT INTO capacities (car_type, quantity) VALUES ('VAN', 2)"
+        },
+        executionPhase = ExecutionPhase.BEFORE_TEST_CLASS
+)
+public class ConcurrentBookingTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired ReservationService reservationService;
+    @Autowired ReservationRepository reservationRepository;
+
+    @Test
+    void simultaneous_bookings_never_exceed_capacity() throws Exception {
+        Instant start = Instant.now().plus(2, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                long userId = 1000 + i;
+                // every booking overlaps the first one, staggered by an hour
+                var req = new ReservationCreateRequest(CarType.SEDAN, start.plus(i, ChronoUnit.HOURS), 1);
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    try {
+                        reservationService.create(userId, req);
+                        booked.incrementAndGet();
+                    } catch (ConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long stored = reservationRepository.countOverlappingByTypeExcluding(CarType.SEDAN, start,
+                start.plus(1, ChronoUnit.DAYS), start.minus(365, ChronoUnit.DAYS), ReservationStatus.CONFIRMED, null);
+        assertEquals(3, stored, "overlapping sedan reservations for 3 sedans");
+        assertEquals(3, booked.get());
+        assertEquals(THREADS - 3, conflicts.get());
+        assertEquals(booked.get(), reservationRepository.findAll().stream()
+                .filter(r -> r.getCarType() == CarType.SEDAN).count());
+    }
+
+    @Test
+    void different_car_types_book_in_parallel() throws Exception {
+        Instant start = Instant.now().plus(20, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (CarType type : List.of(CarType.SUV, CarType.SUV, CarType.VAN, CarType.VAN)) {
+                var req = new ReservationCreateRequest(type, start, 2);
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    return reservationService.create(2000L, req);
+                }));
+            }
+            go.countDown();
+            for (Future<?> f : futures) assertNotNull(f.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.rental;
+
+import com.example.rental.dto.reservation.ReservationCreateRequest;
+import com.example.rental.dto.reservation.ReservationUpdateRequest;
+import com.example.rental.model.CarType;
+import com.example.rental.model.DailyInventory;
+import com.example.rental.repository.DailyInventoryRepository;
+import com.example.rental.service.BookingLockService;
+import com.example.rental.service.DailyInventoryService;
+import com.example.rental.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that daily_inventory follows create/update/cancel inside their transactions, that the
+ * rebuild job agrees with it, and that the inventory availability source reads from it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventory;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "app.availability.source=inventory"
+})
+@Sql(
+        statements = {
+                "INSERT INTO capacities (car_type, quantity) VALUES ('SEDAN', 2)",
+                "INSERT INTO capacities (car_type, quantity) VALUES ('SUV', 2)",
+                "INSERT INTO capacities (car_type, quantity) VALUES ('VAN', 2)"
+        },
+        executionPhase = ExecutionPhase.BEFORE_TEST_CLASS
+)
+public class DailyInventoryTest {
+
+    @Autowired ReservationService reservationService;
+    @Autowired DailyInventoryService dailyInventory;
+    @Autowired DailyInventoryRepository inventoryRepository;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired BookingLockService bookingLocks;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void inventory_tracks_writes_and_matches_rebuild() {
+        LocalDate d = LocalDate.now(ZoneOffset.UTC).plusDays(5);
+        Instant noon = d.atTime(12, 0).toInstant(ZoneOffset.UTC);
+
+        // noon to noon two days later touches d, d+1, d+2
+        var a = reservationService.create(1L, new ReservationCreateRequest(CarType.SUV, noon, 2));
+        var b = reservationService.create(2L, new ReservationCreateRequest(CarType.SUV, noon.plusSeconds(86_400), 1));
+        assertEquals(Map.of(d, 1, d.plusDays(1), 2, d.plusDays(2), 2), booked(CarType.SUV));
+        assertEquals(0, reservationService.available(CarType.SUV, noon.plusSeconds(86_400), 1));
+
+        reservationService.update(2L, b.getId(), new ReservationUpdateRequest(CarType.SUV, noon.plusSeconds(3 * 86_400), 1));
+        assertEquals(Map.of(d, 1, d.plusDays(1), 1, d.plusDays(2), 1, d.plusDays(3), 1, d.plusDays(4), 1), booked(CarType.SUV));
+
+        reservationService.cancel(1L, a.getId());
+        assertEquals(Map.of(d, 0, d.plusDays(1), 0, d.plusDays(2), 0, d.plusDays(3), 1, d.plusDays(4), 1), booked(CarType.SUV));
+        assertEquals(2, reservationService.available(CarType.SUV, noon, 1));
+
+        Map<LocalDate, Integer> incremental = booked(CarType.SUV);
+        jdbc.update("update daily_inventory set booked = 7");
+        dailyInventory.rebuild();
+        assertEquals(incremental, booked(CarType.SUV));
+    }
+
+    @Test
+    void rebuild_waits_for_in_flight_bookings() throws Exception {
+        Instant start = LocalDate.now(ZoneOffset.UTC).plusDays(20).atTime(9, 0).toInstant(ZoneOffset.UTC);
+        reservationService.create(3L, new ReservationCreateRequest(CarType.SEDAN, start, 1));
+
+        CountDownLatch locked = new CountDownLatch(1);
+        try (ExecutorService booking = Executors.newSingleThreadExecutor()) {
+            Future<?> inFlight = booking.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(s -> {
+                bookingLocks.lock(CarType.SEDAN, start, start.plusSeconds(86_400));
+                locked.countDown();
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            long t0 = System.nanoTime();
+            dailyInventory.rebuild();
+            assertTrue(System.nanoTime() - t0 >= TimeUnit.MILLISECONDS.toNanos(250), "rebuild took the booking lock");
+            inFlight.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private Map<LocalDate, Integer> booked(CarType type) {
+        Map<LocalDate, Integer> out = new TreeMap<>();
+        for (DailyInventory row : inventoryRepository.findAll()) {
+            if (row.getId().getCarType() == type) out.put(row.getId().getDate(), row.getBooked());
+        }
+        return out;
+    }
+}
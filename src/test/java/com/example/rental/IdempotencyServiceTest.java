@@ -0,0 +1,114 @@
+package com.example.rental;
+
+import com.example.rental.exception.ConflictException;
+import com.example.rental.repository.IdempotencyRecordRepository;
+import com.example.rental.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Two service instances over one database stand in for two nodes behind a balancer. */
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:mem:idempotency;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH")
+public class IdempotencyServiceTest {
+
+    @Autowired IdempotencyService service;
+    @Autowired IdempotencyRecordRepository repository;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    private IdempotencyService otherNode() {
+        return new IdempotencyService(repository, objectMapper, transactionManager, new SimpleMeterRegistry(),
+                Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void retry_replays_and_other_request_or_user_is_separate() {
+        AtomicInteger runs = new AtomicInteger();
+        var first = service.execute(1L, "k", "req-a", Integer.class, runs::incrementAndGet);
+        var retry = service.execute(1L, "k", "req-a", Integer.class, runs::incrementAndGet);
+        assertEquals(1, first.value());
+        assertFalse(first.replayed());
+        assertEquals(1, retry.value());
+        assertTrue(retry.replayed());
+
+        assertThrows(IllegalArgumentException.class, () -> service.execute(1L, "k", "req-b", Integer.class, runs::incrementAndGet));
+        assertEquals(2, service.execute(2L, "k", "req-a", Integer.class, runs::incrementAndGet).value(), "keys are per user");
+    }
+
+    @Test
+    void failures_are_not_stored() {
+        assertThrows(IllegalStateException.class, () -> service.execute(1L, "f", "req", String.class, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("ok", otherNode().execute(1L, "f", "req", String.class, () -> "ok").value());
+    }
+
+    @Test
+    void concurrent_duplicates_share_one_execution() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<IdempotencyService.Outcome<Integer>>> results = new ArrayList<>();
+        try (var pool = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> service.execute(1L, "c", "req", Integer.class, () -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return runs.incrementAndGet();
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (var f : results) assertEquals(1, f.get().value());
+        }
+        assertEquals(1, runs.get());
+        assertEquals(1, results.stream().filter(f -> !f.resultNow().replayed()).count());
+    }
+
+    @Test
+    void retry_on_another_node_replays_or_waits_for_the_first_attempt() throws Exception {
+        IdempotencyService other = otherNode();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1);
+        try (var pool = Executors.newSingleThreadExecutor()) {
+            Future<IdempotencyService.Outcome<Map>> first = pool.submit(() -> service.execute(3L, "n", Map.of("days", 1), Map.class, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                runs.incrementAndGet();
+                return Map.of("id", 42);
+            }));
+            started.await();
+            assertThrows(ConflictException.class, () -> other.execute(3L, "n", Map.of("days", 1), Map.class, () -> Map.of("id", runs.incrementAndGet())),
+                    "first attempt still running");
+            assertThrows(IllegalArgumentException.class, () -> other.execute(3L, "n", Map.of("days", 2), Map.class, Map::of));
+            release.countDown();
+            assertFalse(first.get().replayed());
+        }
+
+        var retry = other.execute(3L, "n", Map.of("days", 1), Map.class, () -> Map.of("id", runs.incrementAndGet()));
+        assertTrue(retry.replayed());
+        assertEquals(Map.of("id", 42), retry.value());
+        assertEquals(1, runs.get());
+    }
+}
@@ -2,6 +2,8 @@ package com.example.rental;
 
 import com.example.rental.dto.auth.LoginRequest;
 import com.example.rental.dto.auth.SignupRequest;
+import com.example.rental.dto.reservation.BatchMode;
+import com.example.rental.dto.reservation.ReservationBatchRequest;
 import com.example.rental.dto.reservation.ReservationCreateRequest;
 import com.example.rental.dto.reservation.ReservationUpdateRequest;
 import com.example.rental.model.CarType;
@@ -19,10 +21,18 @@ import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -31,19 +41,21 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 /**
  * Integration tests aligned with user-only API:
- *  - POST /api/auth/signup
+ *  - POST /api/auth/signup (duplicate emails, also concurrent)
  *  - POST /api/auth/login
  *  - GET  /api/availability?carType=...&startAt=...&days=...
+ *  - GET  /api/availability/calendar?from=...&to=...
  *  - POST /api/reservations
+ *  - POST /api/reservations/batch
  *  - PUT  /api/reservations/{id}
  *  - DELETE /api/reservations/{id}
- *  - GET  /api/reservations/my
+ *  - GET  /api/reservations/my (keyset pages, filters, NDJSON stream)
  *
  * Notes:
  *  - Uses H2 with ddl-auto:create-drop in test profile.
  *  - Seeds capacity ONCE per class with @Sql BEFORE_TEST_CLASS, so availability > 0.
  */
-@SpringBootTest
+@SpringBootTest(properties = "app.reservations.page.default-size=2")
 @AutoConfigureMockMvc
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @Sql(
@@ -194,4 +206,206 @@ public class IntegrationFlowTest {
                         .header("Authorization", "Bearer " + tok1))
                 .andExpect(status().is2xxSuccessful());
     }
+
+    @Test
+    @Order(4)
+    void availability_calendar_streams_per_day_counts_for_all_types() throws Exception {
+        var tok = tokenFrom(mvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new SignupRequest("calendar@test.com", "pw"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        // book a van for the whole of day+10
+        LocalDate day = LocalDate.now(ZoneOffset.UTC).plusDays(10);
+        var booking = new ReservationCreateRequest(CarType.VAN, day.atStartOfDay(ZoneOffset.UTC).toInstant(), 1);
+        mvc.perform(post("/api/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(booking))
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(status().isOk());
+
+        var result = mvc.perform(get("/api/availability/calendar")
+                        .param("from", day.minusDays(1).toString())
+                        .param("to", day.plusDays(1).toString())
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(3)))
+                .andExpect(jsonPath("$[1].date", is(day.toString())))
+                .andExpect(jsonPath("$[0].available.van", is(1)))
+                .andExpect(jsonPath("$[1].available.van", is(0)))
+                .andExpect(jsonPath("$[2].available.van", is(1)));
+
+        mvc.perform(get("/api/availability/calendar")
+                        .param("from", day.toString())
+                        .param("to", day.minusDays(1).toString())
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(5)
+    void my_reservations_page_by_cursor_filter_by_status_and_stream_as_ndjson() throws Exception {
+        var tok = tokenFrom(mvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new SignupRequest("pager@test.com", "pw"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        long lastId = 0;
+        for (int day : new int[]{30, 32, 34}) {
+            var req = new ReservationCreateRequest(CarType.SUV, futureInstantHoursFromNow(24 * day), 1);
+            lastId = om.readTree(mvc.perform(post("/api/reservations")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(om.writeValueAsString(req))
+                            .header("Authorization", "Bearer " + tok))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).get("id").asLong();
+        }
+        mvc.perform(delete("/api/reservations/{id}", lastId).header("Authorization", "Bearer " + tok))
+                .andExpect(status().is2xxSuccessful());
+
+        mvc.perform(get("/api/reservations/my").header("Authorization", "Bearer " + tok))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(3)))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        var first = mvc.perform(get("/api/reservations/my").param("limit", "2")
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn().getResponse();
+        mvc.perform(get("/api/reservations/my").param("limit", "2")
+                        .param("cursor", first.getHeader("X-Next-Cursor"))
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].id", is((int) lastId)))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        mvc.perform(get("/api/reservations/my").param("status", "CANCELLED")
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].status", is("CANCELLED")));
+
+        mvc.perform(get("/api/reservations/my").param("cursor", "not-a-cursor")
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(status().isBadRequest());
+
+        var result = mvc.perform(get("/api/reservations/my").param("status", "CONFIRMED")
+                        .accept("application/x-ndjson")
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        var lines = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("CONFIRMED", om.readTree(lines.get(0)).get("status").asText());
+    }
+
+    @Test
+    @Order(6)
+    void batch_booking_all_or_nothing_rolls_back_and_best_effort_books_partially() throws Exception {
+        var tok = tokenFrom(mvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new SignupRequest("fleet@test.com", "pw"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        // one sedan: the second item overlaps the first
+        var first = new ReservationCreateRequest(CarType.SEDAN, futureInstantHoursFromNow(24 * 60), 2);
+        var overlapping = new ReservationCreateRequest(CarType.SEDAN, futureInstantHoursFromNow(24 * 61), 1);
+        var later = new ReservationCreateRequest(CarType.SEDAN, futureInstantHoursFromNow(24 * 70), 1);
+
+        mvc.perform(post("/api/reservations/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ReservationBatchRequest(BatchMode.ALL_OR_NOTHING, List.of(first, overlapping, later))))
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", containsString("items[1]")));
+        mvc.perform(get("/api/reservations/my").header("Authorization", "Bearer " + tok))
+                .andExpect(jsonPath("$.length()", is(0)));
+
+        mvc.perform(post("/api/reservations/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ReservationBatchRequest(BatchMode.BEST_EFFORT, List.of(first, overlapping, later))))
+                        .header("Authorization", "Bearer " + tok))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.items[1].error", containsString("No availability")))
+                .andExpect(jsonPath("$.items[2].reservation.status", is("CONFIRMED")));
+        mvc.perform(get("/api/reservations/my").header("Authorization", "Bearer " + tok))
+                .andExpect(jsonPath("$.length()", is(2)));
+    }
+
+    @Test
+    @Order(7)
+    void concurrent_duplicate_signups_create_one_user() throws Exception {
+        String body = om.writeValueAsString(new SignupRequest("burst@example.com", "pw"));
+        List<Integer> statuses;
+        try (var pool = Executors.newFixedThreadPool(8)) {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> mvc.perform(post("/api/auth/signup")
+                                .contentType(MediaType.APPLICATION_JSON).content(body))
+                        .andReturn().getResponse().getStatus()));
+            }
+            statuses = new ArrayList<>();
+            for (Future<Integer> f : results) statuses.add(f.get());
+        }
+        assertEquals(1, statuses.stream().filter(st -> st == 200).count(), statuses.toString());
+        assertEquals(7, statuses.stream().filter(st -> st == 400).count(), statuses.toString());
+
+        mvc.perform(post("/api/auth/signup").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Email already used")));
+    }
+
+    @Test
+    @Order(8)
+    void idempotency_key_replays_the_first_booking() throws Exception {
+        var tok = tokenFrom(mvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new SignupRequest("retry@example.com", "pw"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        Instant start = futureInstantHoursFromNow(24 * 90);
+        String body = om.writeValueAsString(new ReservationCreateRequest(CarType.VAN, start, 1));
+
+        String first = mvc.perform(post("/api/reservations").header("Authorization", "Bearer " + tok)
+                        .header("Idempotency-Key", "booking-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn().getResponse().getContentAsString();
+
+        // the only van is now taken, yet the retry succeeds with the original reservation
+        mvc.perform(post("/api/reservations").header("Authorization", "Bearer " + tok)
+                        .header("Idempotency-Key", "booking-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(content().json(first));
+
+        // the same request written differently is still the same request
+        mvc.perform(post("/api/reservations").header("Authorization", "Bearer " + tok)
+                        .header("Idempotency-Key", "booking-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"days\": 1, \"startAt\": \"" + start + "\", \"carType\": \"VAN\" }"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        mvc.perform(post("/api/reservations").header("Authorization", "Bearer " + tok)
+                        .header("Idempotency-Key", "booking-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ReservationCreateRequest(CarType.VAN, futureInstantHoursFromNow(24 * 95), 1))))
+                .andExpect(status().isBadRequest());
+    }
 }
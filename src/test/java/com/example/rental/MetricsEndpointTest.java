@@ -0,0 +1,83 @@
+package com.example.rental;
+
+import com.example.rental.dto.auth.SignupRequest;
+import com.example.rental.dto.reservation.ReservationCreateRequest;
+import com.example.rental.model.CarType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Signup, a booking, a conflict and an availability read show up on the Prometheus endpoint, for the scraper only. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.observations.annotations.enabled=true",
+        "management.metrics.distribution.percentiles.reservation=0.5,0.99",
+        "app.metrics.scrape.password={noop}scrape"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@Sql(
+        statements = "INSERT INTO capacities (car_type, quantity) VALUES ('VAN', 1)",
+        executionPhase = ExecutionPhase.BEFORE_TEST_CLASS
+)
+public class MetricsEndpointTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void hot_paths_are_exported() throws Exception {
+        String token = om.readTree(mvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new SignupRequest("metrics@test.com", "pw"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("token").asText();
+
+        String booking = om.writeValueAsString(new ReservationCreateRequest(CarType.VAN,
+                Instant.now().plus(2, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS), 1));
+        for (int expected : new int[]{200, 409}) {
+            mvc.perform(post("/api/reservations").header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON).content(booking))
+                    .andExpect(status().is(expected));
+        }
+        mvc.perform(get("/api/availability").header("Authorization", "Bearer " + token)
+                        .param("carType", "van").param("startAt", Instant.now().plus(1, ChronoUnit.DAYS).toString()).param("days", "1"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + token)).andExpect(status().isUnauthorized());
+        mvc.perform(get("/actuator/prometheus").header("Authorization", basic("prometheus", "scrape")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("reservation_create_seconds_count")))
+                .andExpect(content().string(containsString("reservation_available_seconds{")))
+                .andExpect(content().string(containsString("quantile=\"0.99\"")))
+                .andExpect(content().string(containsString("reservation_overlap_count_seconds_count{query=\"btree\"")))
+                .andExpect(content().string(containsString("auth_password_encode_seconds_count")))
+                .andExpect(content().string(containsString("auth_jwt_parse_seconds_count{result=\"valid\"")))
+                .andExpect(content().string(containsString("http_conflicts_total{kind=\"business\"")))
+                .andExpect(content().string(containsString("availability_cache_requests_total{result=\"miss\"")));
+    }
+
+    private static String basic(String user, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
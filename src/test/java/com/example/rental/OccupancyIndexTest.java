@@ -0,0 +1,127 @@
+package com.example.rental;
+
+import com.example.rental.config.cache.LocalCacheInvalidationBus;
+import com.example.rental.event.ReservationChangedEvent;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationStatus;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.repository.ReservationRepository;
+import com.example.rental.service.AvailabilityCache;
+import com.example.rental.service.OccupancyIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OccupancyIndexTest {
+
+    private static final Instant T0 = Instant.parse("2030-01-01T10:00:00Z");
+
+    private ReservationRepository reservationRepository;
+    private LocalCacheInvalidationBus bus;
+    private AvailabilityCache availabilityCache;
+    private OccupancyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = Mockito.mock(ReservationRepository.class);
+        when(reservationRepository.findWindowsEndingAfter(eq(ReservationStatus.CONFIRMED), any(), any())).thenReturn(List.of(
+                window(1L, CarType.SEDAN, 0, 2),
+                window(2L, CarType.SEDAN, 3, 1),
+                window(3L, CarType.SUV, 0, 5)));
+        bus = new LocalCacheInvalidationBus();
+        availabilityCache = new AvailabilityCache(new ConcurrentMapCacheManager("availability"), bus, new SimpleMeterRegistry(), Duration.ofHours(1));
+        index = newIndex();
+        index.load();
+    }
+
+    private OccupancyIndex newIndex() {
+        return new OccupancyIndex(reservationRepository, availabilityCache, bus, true, "repair", 30);
+    }
+
+    private static ReservationWindow window(Long id, CarType type, int startDay, int days) {
+        Instant start = T0.plus(startDay, ChronoUnit.DAYS);
+        return new ReservationWindow(id, type, start, start.plus(days, ChronoUnit.DAYS));
+    }
+
+    private long count(CarType type, int startDay, int days, Long excludeId) {
+        Instant start = T0.plus(startDay, ChronoUnit.DAYS);
+        return index.countOverlapping(type, start, start.plus(days, ChronoUnit.DAYS), excludeId);
+    }
+
+    @Test
+    void counts_half_open_overlaps_like_the_query() {
+        assertTrue(index.isReady());
+        assertEquals(1, count(CarType.SEDAN, 0, 1, null));
+        assertEquals(0, count(CarType.SEDAN, 2, 1, null));   // touches end of #1 and start of #2
+        assertEquals(2, count(CarType.SEDAN, 1, 3, null));
+        assertEquals(1, count(CarType.SEDAN, 1, 3, 2L));
+        assertEquals(1, count(CarType.SUV, 4, 10, null));
+        assertEquals(0, count(CarType.VAN, 0, 30, null));
+    }
+
+    @Test
+    void follows_create_update_and_cancel_events() {
+        index.onReservationChanged(new ReservationChangedEvent(4L, 1L, null, window(4L, CarType.VAN, 0, 1)));
+        assertEquals(1, count(CarType.VAN, 0, 1, null));
+
+        index.onReservationChanged(new ReservationChangedEvent(4L, 1L, window(4L, CarType.VAN, 0, 1), window(4L, CarType.SEDAN, 10, 1)));
+        assertEquals(0, count(CarType.VAN, 0, 1, null));
+        assertEquals(1, count(CarType.SEDAN, 10, 1, null));
+
+        index.onReservationChanged(new ReservationChangedEvent(1L, 1L, window(1L, CarType.SEDAN, 0, 2), window(1L, CarType.SEDAN, 20, 2)));
+        assertEquals(0, count(CarType.SEDAN, 0, 1, null));
+        assertEquals(1, count(CarType.SEDAN, 20, 1, null));
+
+        index.onReservationChanged(new ReservationChangedEvent(2L, 1L, window(2L, CarType.SEDAN, 3, 1), null));
+        index.onReservationChanged(new ReservationChangedEvent(2L, 1L, window(2L, CarType.SEDAN, 3, 1), null));
+        assertEquals(0, count(CarType.SEDAN, 3, 1, null));
+        assertEquals(2, index.snapshot(CarType.SEDAN).size());
+    }
+
+    @Test
+    void repair_reloads_from_database_on_drift() {
+        index.onReservationChanged(new ReservationChangedEvent(9L, 1L, null, window(9L, CarType.VAN, 0, 1)));
+        assertEquals(1, count(CarType.VAN, 0, 1, null));
+        index.reconcile();
+        assertEquals(0, count(CarType.VAN, 0, 1, null));
+        verify(reservationRepository, times(2)).findWindowsEndingAfter(eq(ReservationStatus.CONFIRMED), any(), any());
+    }
+
+    @Test
+    void loads_only_windows_ending_after_the_cutoff_and_covers_from_there() {
+        verify(reservationRepository).findWindowsEndingAfter(eq(ReservationStatus.CONFIRMED),
+                argThat(after -> after.isBefore(Instant.now()) && after.isAfter(Instant.now().minus(2, ChronoUnit.DAYS))), any());
+        assertTrue(index.covers(Instant.now()));
+        assertFalse(index.covers(Instant.now().minus(30, ChronoUnit.DAYS)));
+    }
+
+    @Test
+    void applies_changes_committed_on_another_node() {
+        OccupancyIndex other = newIndex();
+        other.load();
+        long generation = availabilityCache.generation(CarType.VAN);
+
+        when(reservationRepository.findWindowByIdAndStatus(5L, ReservationStatus.CONFIRMED))
+                .thenReturn(Optional.of(window(5L, CarType.VAN, 0, 1)));
+        index.onReservationChanged(new ReservationChangedEvent(5L, 1L, null, window(5L, CarType.VAN, 0, 1)));
+        assertEquals(1, other.countOverlapping(CarType.VAN, T0, T0.plus(1, ChronoUnit.DAYS), null));
+        assertTrue(availabilityCache.generation(CarType.VAN) > generation, "availability around it evicted");
+
+        when(reservationRepository.findWindowByIdAndStatus(5L, ReservationStatus.CONFIRMED)).thenReturn(Optional.empty());
+        index.onReservationChanged(new ReservationChangedEvent(5L, 1L, window(5L, CarType.VAN, 0, 1), null));
+        assertEquals(0, other.countOverlapping(CarType.VAN, T0, T0.plus(1, ChronoUnit.DAYS), null));
+    }
+}
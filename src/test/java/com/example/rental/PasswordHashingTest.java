@@ -0,0 +1,95 @@
+package com.example.rental;
+
+import com.example.rental.config.BoundedPasswordEncoder;
+import com.example.rental.dto.auth.LoginRequest;
+import com.example.rental.exception.ServiceBusyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Hashing pool back-pressure, and login upgrading a hash below the configured strength. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:password;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "app.password.bcrypt.strength=5"
+})
+@AutoConfigureMockMvc
+public class PasswordHashingTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void login_rehashes_weaker_hash() throws Exception {
+        jdbc.update("insert into users (email, password_hash) values (?, ?)",
+                "old@test.com", new BCryptPasswordEncoder(4).encode("pw"));
+
+        mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new LoginRequest("old@test.com", "pw"))))
+                .andExpect(status().isOk());
+
+        String hash = jdbc.queryForObject("select password_hash from users where email = 'old@test.com'", String.class);
+        assertTrue(hash.startsWith("$2a$05$"), hash);
+        mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new LoginRequest("old@test.com", "pw"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void full_pool_rejects_fast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override public String encode(CharSequence raw) { await(release); return raw.toString(); }
+            @Override public boolean matches(CharSequence raw, String encoded) { return raw.toString().equals(encoded); }
+        };
+        var registry = new SimpleMeterRegistry();
+        try (var encoder = new BoundedPasswordEncoder(slow, 1, 1, Duration.ofSeconds(5), registry);
+             ExecutorService callers = Executors.newFixedThreadPool(2)) {
+            callers.submit(() -> encoder.encode("running"));
+            callers.submit(() -> encoder.encode("queued"));
+            while (registry.get("auth.password.queue").gauge().value() < 1) Thread.sleep(5);
+
+            long t0 = System.nanoTime();
+            var busy = assertThrows(ServiceBusyException.class, () -> encoder.encode("rejected"));
+            assertTrue(busy.getMessage().contains("signup"), "message covers every hashing caller");
+            assertTrue(System.nanoTime() - t0 < TimeUnit.SECONDS.toNanos(1), "rejected without waiting");
+            assertEquals(1, registry.get("auth.password.rejected").tag("reason", "queue_full").counter().count());
+            release.countDown();
+        }
+
+        CountDownLatch never = new CountDownLatch(1);
+        PasswordEncoder stuck = new PasswordEncoder() {
+            @Override public String encode(CharSequence raw) { await(never); return raw.toString(); }
+            @Override public boolean matches(CharSequence raw, String encoded) { return false; }
+        };
+        try (var encoder = new BoundedPasswordEncoder(stuck, 1, 1, Duration.ofMillis(50), new SimpleMeterRegistry())) {
+            assertThrows(ServiceBusyException.class, () -> encoder.encode("times out"));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
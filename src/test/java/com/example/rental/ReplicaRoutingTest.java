@@ -0,0 +1,100 @@
+package com.example.rental;
+
+import com.example.rental.config.AuthenticatedUser;
+import com.example.rental.config.routing.ReadYourWritesTracker;
+import com.example.rental.dto.reservation.ReservationCreateRequest;
+import com.example.rental.model.CarType;
+import com.example.rental.service.AvailabilityKey;
+import com.example.rental.service.AvailabilityWarmupService;
+import com.example.rental.service.ReservationService;
+import com.example.rental.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two H2 databases standing in for primary and replica. The replica has a user the primary lacks,
+ * and lacks the reservations booked in the test, so where a read went is visible from its result.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "app.datasource.replica.url=jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "spring.cache.type=simple",
+        "app.availability.source=database"
+})
+public class ReplicaRoutingTest {
+
+    @Autowired UserService userService;
+    @Autowired ReadYourWritesTracker tracker;
+    @Autowired ReservationService reservationService;
+    @Autowired AvailabilityWarmupService warmup;
+    @Autowired CacheManager cacheManager;
+    @Autowired @Qualifier("primaryDataSource") DataSource primary;
+    @Autowired @Qualifier("replicaDataSource") DataSource replica;
+
+    @BeforeEach
+    void seedReplica() {
+        JdbcTemplate jdbc = new JdbcTemplate(replica);
+        jdbc.execute("create table if not exists users (id bigint primary key, email varchar(120), password_hash varchar(255))");
+        jdbc.update("merge into users key (id) values (1, 'replica@test.com', 'x')");
+        jdbc.execute("create table if not exists capacities (id bigint primary key, car_type varchar(16), quantity int)");
+        jdbc.execute("create table if not exists reservations (id bigint primary key, user_id bigint, car_type varchar(16),"
+                + " start_at timestamp, end_at timestamp, days int, status varchar(16), version bigint)");
+        jdbc.update("merge into capacities key (id) values (1, 'VAN', 2)");
+        new JdbcTemplate(primary).update("merge into capacities (car_type, quantity) key (car_type) values ('VAN', 2)");
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void read_only_transactions_use_replica_and_writes_use_primary() {
+        assertTrue(userService.findByEmail("replica@test.com").isPresent());
+
+        userService.signup("primary@test.com", "pw");
+        assertTrue(userService.findByEmail("primary@test.com").isEmpty(), "not replicated in this test");
+    }
+
+    @Test
+    void recent_writer_reads_from_primary() {
+        var user = new AuthenticatedUser(42L, "writer@test.com", "", List.of());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        assertTrue(userService.findByEmail("replica@test.com").isPresent());
+
+        tracker.markWrite(42L);
+        assertTrue(userService.findByEmail("replica@test.com").isEmpty(), "sticky to primary");
+    }
+
+    @Test
+    void cache_fills_from_primary_while_replica_lags() {
+        Instant now = Instant.now();
+        Instant start = now.truncatedTo(ChronoUnit.HOURS).plus(2, ChronoUnit.HOURS);
+        reservationService.create(7L, new ReservationCreateRequest(CarType.VAN, start, 1));
+        Cache cache = cacheManager.getCache("availability");
+        cache.clear();
+
+        assertEquals(1, reservationService.available(CarType.VAN, start, 1), "the replica has not seen the booking");
+        assertEquals(1L, cache.get(new AvailabilityKey(CarType.VAN, start, 1), Long.class));
+
+        cache.clear();
+        warmup.warm(now);
+        assertEquals(1L, cache.get(new AvailabilityKey(CarType.VAN, start, 1), Long.class));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.rental;
+
+import com.example.rental.dto.reservation.ReservationCreateRequest;
+import com.example.rental.dto.reservation.ReservationUpdateRequest;
+import com.example.rental.event.ReservationFeedEvent;
+import com.example.rental.event.ReservationFeedSink;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationOutboxEntry.ChangeType;
+import com.example.rental.repository.ReservationOutboxRepository;
+import com.example.rental.service.ReservationOutboxService;
+import com.example.rental.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Outbox rows follow the writes; the relay delivers them in order, once per success. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "app.outbox.relay-interval=PT1H",
+        "app.outbox.batch-size=2"
+})
+@Sql(
+        statements = "INSERT INTO capacities (car_type, quantity) VALUES ('SUV', 5)",
+        executionPhase = ExecutionPhase.BEFORE_TEST_CLASS
+)
+public class ReservationOutboxTest {
+
+    @TestConfiguration
+    static class Feed {
+        final List<ReservationFeedEvent> received = new CopyOnWriteArrayList<>();
+        final List<ReservationFeedEvent> sunk = new CopyOnWriteArrayList<>();
+        final AtomicBoolean failSink = new AtomicBoolean();
+
+        @EventListener
+        void on(ReservationFeedEvent e) { received.add(e); }
+
+        @Bean
+        ReservationFeedSink testSink() {
+            return batch -> {
+                if (failSink.get()) throw new IllegalStateException("sink down");
+                sunk.addAll(batch);
+            };
+        }
+    }
+
+    @Autowired ReservationService reservationService;
+    @Autowired ReservationOutboxService outbox;
+    @Autowired ReservationOutboxRepository outboxRepository;
+    @Autowired Feed feed;
+
+    @Test
+    void writes_are_relayed_in_order_and_retried_after_sink_failure() {
+        Instant start = Instant.now().plus(3, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        var r = reservationService.create(7L, new ReservationCreateRequest(CarType.SUV, start, 1));
+        reservationService.update(7L, r.getId(), new ReservationUpdateRequest(CarType.SUV, start.plus(1, ChronoUnit.DAYS), 2));
+        reservationService.cancel(7L, r.getId());
+        assertEquals(3, outboxRepository.count());
+
+        feed.failSink.set(true);
+        assertThrows(IllegalStateException.class, () -> outbox.relay());
+        assertTrue(outboxRepository.findAll().stream().allMatch(e -> e.getPublishedAt() == null), "batch rolled back");
+
+        feed.failSink.set(false);
+        feed.received.clear();
+        assertEquals(3, outbox.relay());
+        assertEquals(0, outbox.relay());
+
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.CANCELLED),
+                feed.sunk.stream().map(ReservationFeedEvent::changeType).toList());
+        assertEquals(feed.sunk, feed.received);
+        var update = feed.sunk.get(1);
+        assertEquals(start, update.before().startAt());
+        assertEquals(start.plus(1, ChronoUnit.DAYS), update.after().startAt());
+        assertNull(feed.sunk.get(2).after());
+        assertTrue(feed.sunk.get(0).sequence() < update.sequence() && update.sequence() < feed.sunk.get(2).sequence());
+    }
+}
@@ -1,19 +1,32 @@
 package com.example.rental;
 
+import com.example.rental.config.cache.LocalCacheInvalidationBus;
+import com.example.rental.dto.reservation.BatchMode;
 import com.example.rental.dto.reservation.ReservationCreateRequest;
 import com.example.rental.dto.reservation.ReservationUpdateRequest;
 import com.example.rental.exception.ConflictException;
 import com.example.rental.model.CarType;
 import com.example.rental.model.Reservation;
 import com.example.rental.model.ReservationStatus;
+import com.example.rental.model.ReservationWindow;
 import com.example.rental.repository.ReservationRepository;
+import com.example.rental.service.AvailabilityCache;
+import com.example.rental.service.BookingLockService;
 import com.example.rental.service.CapacityService;
+import com.example.rental.service.DailyInventoryService;
+import com.example.rental.service.OccupancyIndex;
 import com.example.rental.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,30 +38,39 @@ public class ReservationServiceTest {
     private ReservationRepository reservationRepository;
     private CapacityService capacityService;
     private ReservationService reservationService;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
         reservationRepository = Mockito.mock(ReservationRepository.class);
         capacityService = Mockito.mock(CapacityService.class);
-        reservationService = new ReservationService(reservationRepository, capacityService);
+        var bus = new LocalCacheInvalidationBus();
+        var availabilityCache = new AvailabilityCache(new NoOpCacheManager(), bus, new SimpleMeterRegistry(), Duration.ofHours(1));
+        var occupancyIndex = new OccupancyIndex(reservationRepository, availabilityCache, bus, false, "off", 30);
+        reservationService = new ReservationService(reservationRepository, capacityService,
+                Mockito.mock(BookingLockService.class), occupancyIndex, Mockito.mock(DailyInventoryService.class),
+                availabilityCache, Mockito.mock(ApplicationEventPublisher.class),
+                Mockito.mock(PlatformTransactionManager.class), meterRegistry, "index", 30, "btree");
         when(reservationRepository.save(any(Reservation.class))).thenAnswer(inv -> inv.getArgument(0));
     }
 
     @Test
     void create_succeeds_when_capacity_available() {
         when(capacityService.capacityOf(CarType.SUV)).thenReturn(2L);
-        when(reservationRepository.countOverlappingByTypeExcluding(eq(CarType.SUV), any(), any(), eq(ReservationStatus.CONFIRMED), isNull())).thenReturn(1L);
+        when(reservationRepository.countOverlappingByTypeExcluding(eq(CarType.SUV), any(), any(), any(), eq(ReservationStatus.CONFIRMED), isNull())).thenReturn(1L);
         var req = new ReservationCreateRequest(CarType.SUV, Instant.now().plusSeconds(3600), 2);
         Reservation r = reservationService.create(1L, req);
         assertEquals(CarType.SUV, r.getCarType());
         assertEquals(ReservationStatus.CONFIRMED, r.getStatus());
         verify(reservationRepository).save(any());
+        assertEquals(1, meterRegistry.get("reservation.overlap.count").tag("query", "btree").timer().count());
     }
 
     @Test
     void create_conflict_when_full() {
         when(capacityService.capacityOf(CarType.SUV)).thenReturn(1L);
-        when(reservationRepository.countOverlappingByTypeExcluding(eq(CarType.SUV), any(), any(), eq(ReservationStatus.CONFIRMED), isNull())).thenReturn(1L);
+        when(reservationRepository.countOverlappingByTypeExcluding(eq(CarType.SUV), any(), any(), any(), eq(ReservationStatus.CONFIRMED), isNull())).thenReturn(1L);
         var req = new ReservationCreateRequest(CarType.SUV, Instant.now().plusSeconds(3600), 2);
         assertThrows(ConflictException.class, () -> reservationService.create(1L, req));
     }
@@ -63,16 +85,75 @@ public class ReservationServiceTest {
                 .endAt(Instant.now().plusSeconds(10800))
                 .days(1).build();
         when(reservationRepository.findById(10L)).thenReturn(Optional.of(existing));
-        when(reservationRepository.countOverlappingByTypeExcluding(eq(CarType.SEDAN), any(), any(), eq(ReservationStatus.CONFIRMED), eq(10L))).thenReturn(0L);
+        when(reservationRepository.countOverlappingByTypeExcluding(eq(CarType.SEDAN), any(), any(), any(), eq(ReservationStatus.CONFIRMED), eq(10L))).thenReturn(0L);
         var req = new ReservationUpdateRequest(CarType.SEDAN, Instant.now().plusSeconds(7200 + 3600), 1);
         var updated = reservationService.update(1L, 10L, req);
         assertEquals(CarType.SEDAN, updated.getCarType());
         verify(reservationRepository).save(any());
     }
 
+    @Test
+    void days_above_max_rejected() {
+        var req = new ReservationCreateRequest(CarType.VAN, Instant.now().plusSeconds(3600), 31);
+        var e = assertThrows(IllegalArgumentException.class, () -> reservationService.create(1L, req));
+        assertEquals("days must be <= 30", e.getMessage());
+    }
+
     @Test
     void start_in_past_rejected() {
         var req = new ReservationCreateRequest(CarType.VAN, Instant.now().minusSeconds(10), 1);
         assertThrows(IllegalArgumentException.class, () -> reservationService.create(1L, req));
     }
+
+    @Test
+    void batch_best_effort_books_what_fits_counting_earlier_items() {
+        when(capacityService.capacityOf(CarType.SUV)).thenReturn(2L);
+        Instant start = Instant.now().plusSeconds(3600);
+        when(reservationRepository.findWindowsOverlapping(eq(ReservationStatus.CONFIRMED), any(), any(), any()))
+                .thenReturn(List.of(new ReservationWindow(7L, CarType.SUV, start, start.plus(Duration.ofDays(1)))));
+        var items = List.of(
+                new ReservationCreateRequest(CarType.SUV, start, 1),
+                new ReservationCreateRequest(CarType.SUV, start, 1),
+                new ReservationCreateRequest(CarType.SUV, Instant.now().minusSeconds(10), 1));
+
+        var outcomes = reservationService.createBatch(1L, BatchMode.BEST_EFFORT, items);
+
+        assertNotNull(outcomes.get(0).reservation());
+        assertEquals("No availability for requested period", outcomes.get(1).error());
+        assertEquals("startAt must be in the future", outcomes.get(2).error());
+        verify(reservationRepository).saveAll(argThat(list -> ((List<?>) list).size() == 1));
+    }
+
+    @Test
+    void batch_all_or_nothing_rejects_whole_batch_on_conflict() {
+        when(capacityService.capacityOf(CarType.VAN)).thenReturn(1L);
+        Instant start = Instant.now().plusSeconds(3600);
+        var items = List.of(
+                new ReservationCreateRequest(CarType.VAN, start, 2),
+                new ReservationCreateRequest(CarType.VAN, start.plus(Duration.ofDays(1)), 1));
+
+        var e = assertThrows(ConflictException.class, () -> reservationService.createBatch(1L, BatchMode.ALL_OR_NOTHING, items));
+        assertTrue(e.getMessage().startsWith("items[1]"));
+        verify(reservationRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void stored_reservation_longer_than_max_days_fails_startup_check() {
+        when(reservationRepository.findMaxDays()).thenReturn(30);
+        assertDoesNotThrow(() -> reservationService.verifyStoredDurations());
+        when(reservationRepository.findMaxDays()).thenReturn(31);
+        assertThrows(IllegalStateException.class, () -> reservationService.verifyStoredDurations());
+    }
+
+    @Test
+    void default_max_days_relies_on_the_constraint_instead_of_scanning() {
+        var occupancyIndex = new OccupancyIndex(reservationRepository, Mockito.mock(AvailabilityCache.class),
+                new LocalCacheInvalidationBus(), false, "off", 365);
+        var service = new ReservationService(reservationRepository, capacityService,
+                Mockito.mock(BookingLockService.class), occupancyIndex, Mockito.mock(DailyInventoryService.class),
+                Mockito.mock(AvailabilityCache.class), Mockito.mock(ApplicationEventPublisher.class),
+                Mockito.mock(PlatformTransactionManager.class), meterRegistry, "index", 365, "btree");
+        service.verifyStoredDurations();
+        verify(reservationRepository, never()).findMaxDays();
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.rental;
+
+import com.example.rental.config.retry.RetryOnTransientFailure;
+import com.example.rental.config.retry.TransientFailureRetryAspect;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransientFailureRetryAspectTest {
+
+    static class Writer {
+        final Deque<RuntimeException> failures = new ArrayDeque<>();
+        final AtomicInteger calls = new AtomicInteger();
+
+        @RetryOnTransientFailure
+        public String write() {
+            calls.incrementAndGet();
+            RuntimeException next = failures.poll();
+            if (next != null) throw next;
+            return "ok";
+        }
+    }
+
+    private SimpleMeterRegistry meterRegistry;
+    private Writer target;
+    private Writer proxy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new Writer();
+        var factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TransientFailureRetryAspect(meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(2)));
+        proxy = factory.getProxy();
+    }
+
+    private double count(String reason, String outcome) {
+        var c = meterRegistry.find("reservation.write.retries").tags("reason", reason, "outcome", outcome).counter();
+        return c == null ? 0 : c.count();
+    }
+
+    @Test
+    void absorbs_serialization_and_optimistic_lock_failures() {
+        target.failures.add(new CannotAcquireLockException("serialize", new SQLException("could not serialize", "40001")));
+        target.failures.add(new ObjectOptimisticLockingFailureException("Reservation", 1L));
+        assertEquals("ok", proxy.write());
+        assertEquals(3, target.calls.get());
+        assertEquals(1, count("serialization", "retried"));
+        assertEquals(1, count("optimistic_lock", "retried"));
+        assertEquals(1, count("optimistic_lock", "recovered"));
+    }
+
+    @Test
+    void gives_up_after_max_attempts() {
+        for (int i = 0; i < 5; i++) target.failures.add(new CannotAcquireLockException("deadlock", new SQLException("deadlock", "40P01")));
+        assertThrows(CannotAcquireLockException.class, () -> proxy.write());
+        assertEquals(3, target.calls.get());
+        assertEquals(1, count("deadlock", "exhausted"));
+    }
+
+    @Test
+    void does_not_retry_other_failures() {
+        target.failures.add(new DataIntegrityViolationException("duplicate"));
+        assertThrows(DataIntegrityViolationException.class, () -> proxy.write());
+        assertEquals(1, target.calls.get());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.rental;
+
+import com.example.rental.config.cache.LocalCacheInvalidationBus;
+import com.example.rental.config.cache.TwoLevelCacheManager;
+import com.example.rental.event.ReservationChangedEvent;
+import com.example.rental.model.CarType;
+import com.example.rental.model.ReservationWindow;
+import com.example.rental.service.AvailabilityCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Two "nodes" sharing one remote cache and one invalidation bus. */
+public class TwoLevelCacheTest {
+
+    private ConcurrentMapCacheManager remote;
+    private LocalCacheInvalidationBus bus;
+    private TwoLevelCacheManager nodeA;
+    private TwoLevelCacheManager nodeB;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCacheManager();
+        bus = new LocalCacheInvalidationBus();
+        nodeA = new TwoLevelCacheManager(remote, bus, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        nodeB = new TwoLevelCacheManager(remote, bus, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void near_hits_skip_remote_and_writes_invalidate_other_nodes() {
+        Cache a = nodeA.getCache("capacity"), b = nodeB.getCache("capacity");
+        a.put(CarType.SUV, 3L);
+        assertEquals(3L, b.get(CarType.SUV, Long.class));
+
+        remote.getCache("capacity").evict(CarType.SUV);
+        assertEquals(3L, b.get(CarType.SUV, Long.class), "served from B's near cache");
+
+        a.put(CarType.SUV, 5L);
+        assertEquals(5L, b.get(CarType.SUV, Long.class), "A's write dropped B's near copy");
+
+        a.evict(CarType.SUV);
+        assertNull(b.get(CarType.SUV));
+    }
+
+    @Test
+    void reservation_change_on_one_node_evicts_availability_keys_registered_on_another() {
+        var availabilityA = new AvailabilityCache(nodeA, bus, new SimpleMeterRegistry(), Duration.ofHours(1));
+        var availabilityB = new AvailabilityCache(nodeB, bus, new SimpleMeterRegistry(), Duration.ofHours(1));
+        Instant start = Instant.parse("2030-01-01T10:00:00Z");
+        AtomicInteger loads = new AtomicInteger();
+
+        availabilityA.get(CarType.VAN, start, 2, (from, to) -> loads.incrementAndGet());
+        availabilityA.get(CarType.VAN, start, 2, (from, to) -> loads.incrementAndGet());
+        assertEquals(1, loads.get());
+
+        // only A registered the key; B commits an overlapping booking
+        var w = new ReservationWindow(1L, CarType.VAN, start.plus(1, ChronoUnit.DAYS), start.plus(2, ChronoUnit.DAYS));
+        availabilityB.onReservationChanged(new ReservationChangedEvent(1L, 1L, null, w));
+
+        availabilityA.get(CarType.VAN, start, 2, (from, to) -> loads.incrementAndGet());
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.rental.load;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load driver for comparing the default platform-thread server with the
+ * {@code virtual} profile on the availability and booking endpoints. Not a unit test; JDK only.
+ *
+ * <pre>
+ * mvn -q test-compile
+ * mvn spring-boot:run                                                      # or -Dspring-boot.run.profiles=virtual
+ * java -cp target/test-classes com.example.rental.load.LoadBenchmark [baseUrl] [clients] [seconds] [bookingPercent]
+ * </pre>
+ * Defaults: http://localhost:8080, 400 clients, 30 seconds, 10% bookings. Each client is a virtual
+ * thread with its own user; reports throughput, status counts and latency percentiles per endpoint.
+ */
+public class LoadBenchmark {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String[] TYPES = {"sedan", "suv", "van"};
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int bookingPercent = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        Stats availability = new Stats(), booking = new Stats();
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < clients; i++) tokens.add(signup(http, baseUrl, "load-" + run + "-" + i + "@example.com"));
+
+        Instant deadline = Instant.now().plusSeconds(seconds);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String token : tokens) {
+                pool.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    while (Instant.now().isBefore(deadline)) {
+                        String type = TYPES[rnd.nextInt(TYPES.length)];
+                        Instant start = Instant.now().plus(1 + rnd.nextInt(24 * 60), ChronoUnit.HOURS).truncatedTo(ChronoUnit.HOURS);
+                        int days = 1 + rnd.nextInt(7);
+                        if (rnd.nextInt(100) < bookingPercent) {
+                            String body = "{\"carType\":\"" + type + "\",\"startAt\":\"" + start + "\",\"days\":" + days + "}";
+                            booking.time(http, HttpRequest.newBuilder(URI.create(baseUrl + "/api/reservations"))
+                                    .header("Authorization", "Bearer " + token)
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString(body)).build());
+                        } else {
+                            String query = "carType=" + type + "&startAt=" + URLEncoder.encode(start.toString(), StandardCharsets.UTF_8) + "&days=" + days;
+                            availability.time(http, HttpRequest.newBuilder(URI.create(baseUrl + "/api/availability?" + query))
+                                    .header("Authorization", "Bearer " + token)
+                                    .GET().build());
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        System.out.printf("%s, %d clients, %ds, %d%% bookings%n", baseUrl, clients, seconds, bookingPercent);
+        availability.print("GET  /api/availability", seconds);
+        booking.print("POST /api/reservations", seconds);
+    }
+
+    private static String signup(HttpClient http, String baseUrl, String email) throws Exception {
+        String body = "{\"email\":\"" + email + "\",\"password\":\"pw\"}";
+        HttpResponse<String> res = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/signup"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+        Matcher m = TOKEN.matcher(res.body());
+        if (!m.find()) throw new IllegalStateException("signup failed (" + res.statusCode() + "): " + res.body());
+        return m.group(1);
+    }
+
+    /**
+     * Status counts and a latency histogram of every request in the run. Buckets are log-linear in
+     * microseconds (exact below 128us, then 64 buckets per power of two, under 1.6% wide), so memory is
+     * fixed while no sample is dropped; percentiles report a bucket's upper edge, max is exact.
+     */
+    static final class Stats {
+        private static final int SUB_BUCKETS = 64;
+
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final AtomicLongArray buckets = new AtomicLongArray(SUB_BUCKETS * SUB_BUCKETS);
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void time(HttpClient http, HttpRequest request) {
+            long t0 = System.nanoTime();
+            int status;
+            try {
+                status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                status = -1;
+            }
+            long micros = (System.nanoTime() - t0) / 1000;
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            buckets.incrementAndGet(bucket(micros));
+            max.accumulate(micros);
+        }
+
+        void print(String label, int seconds) {
+            long total = statuses.values().stream().mapToLong(LongAdder::sum).sum();
+            System.out.printf("%-24s %8.1f req/s  p50=%6.2fms p90=%6.2fms p99=%7.2fms max=%7.2fms  status=%s%n",
+                    label, total / (double) seconds,
+                    pct(0.50), pct(0.90), pct(0.99), max.get() / 1000.0, statuses);
+        }
+
+        private double pct(double p) {
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++) total += buckets.get(i);
+            if (total == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(p * total)), seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target) return Math.min(upperEdge(i), max.get()) / 1000.0;
+            }
+            return max.get() / 1000.0;
+        }
+
+        static int bucket(long micros) {
+            if (micros < 2 * SUB_BUCKETS) return (int) micros;
+            int shift = 63 - Long.numberOfLeadingZeros(micros) - 6;
+            return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+        }
+
+        static long upperEdge(int bucket) {
+            if (bucket < 2 * SUB_BUCKETS) return bucket;
+            int shift = bucket / SUB_BUCKETS - 1;
+            return ((long) (bucket % SUB_BUCKETS + SUB_BUCKETS + 1) << shift) - 1;
+        }
+    }
+}